@@ -0,0 +1,69 @@
+package com.synth.flashcard.scheduler;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the scheduler engines over a whole review queue.
+ *
+ * Run with: ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark=SchedulerBatchBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SchedulerBatchBenchmark {
+
+    @Param({"sm2", "fsrs"})
+    private String engineName;
+
+    @Param({"1000", "10000"})
+    private int cards;
+
+    private SchedulerEngine engine;
+    private ScheduleBatch batch;
+    private ReviewState[] states;
+    private double[] scores;
+    private long now;
+
+    @Setup
+    public void setUp() {
+        engine = "fsrs".equals(engineName) ? new FsrsScheduler(0.9) : new Sm2Scheduler();
+        now = System.currentTimeMillis();
+
+        Random random = new Random(42);
+        batch = new ScheduleBatch(cards);
+        states = new ReviewState[cards];
+        scores = new double[cards];
+
+        for (int i = 0; i < cards; i++) {
+            int reviews = random.nextInt(12);
+            double interval = reviews == 0 ? 0 : 1 + random.nextDouble() * 120;
+            double stability = reviews == 0 ? 0 : 1 + random.nextDouble() * 90;
+            long lastReviewed = now - (long) (random.nextDouble() * 150 * SchedulerEngine.DAY_MILLIS);
+
+            states[i] = new ReviewState(1.3 + random.nextDouble() * 1.7, stability,
+                1 + random.nextDouble() * 9, interval, reviews);
+            scores[i] = random.nextDouble();
+            batch.set(i, i, stability, interval, reviews, lastReviewed, lastReviewed);
+        }
+    }
+
+    @Benchmark
+    public int[] computeBatch() {
+        engine.computeBatch(batch, now);
+        return batch.priorities();
+    }
+
+    @Benchmark
+    public void reviewEach(Blackhole blackhole) {
+        for (int i = 0; i < cards; i++) {
+            blackhole.consume(engine.review(states[i], scores[i], 3.0));
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.synth.flashcard.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of a rate limit check answered from a node's leased tokens, with several threads on one key.
+ * Redis is replaced by a template that grants every lease immediately and leases run on the calling
+ * thread, so the numbers include the occasional refill but no network time.
+ *
+ * Run with: ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark=RateLimiterBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class RateLimiterBenchmark {
+
+    private RateLimiterService rateLimiterService;
+
+    @Setup
+    public void setUp() {
+        rateLimiterService = new RateLimiterService();
+        ReflectionTestUtils.setField(rateLimiterService, "leaseFraction", 0.1);
+        ReflectionTestUtils.setField(rateLimiterService, "maxLease", 50);
+        ReflectionTestUtils.setField(rateLimiterService, "leaseTtlMs", 60_000L);
+        ReflectionTestUtils.setField(rateLimiterService, "redisRetryMs", 5_000L);
+        ReflectionTestUtils.setField(rateLimiterService, "redisTemplate", new GrantingRedisTemplate());
+        ReflectionTestUtils.setField(rateLimiterService, "leaseExecutor", (Executor) Runnable::run);
+        ReflectionTestUtils.setField(rateLimiterService, "meterRegistry", new SimpleMeterRegistry());
+        rateLimiterService.init();
+    }
+
+    @Benchmark
+    public boolean localCheck() {
+        return rateLimiterService.tryAcquire("rate_limit:benchmark:127.0.0.1", 1_000_000, 60).isAllowed();
+    }
+
+    // Grants whatever is asked for from a bucket that never empties
+    private static class GrantingRedisTemplate extends RedisTemplate<String, String> {
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(RedisScript<T> script, List<String> keys, Object... args) {
+            long wanted = Long.parseLong((String) args[2]);
+            return (T) List.of(Math.max(0, wanted), 1_000_000L, 0L, 0L);
+        }
+    }
+}
\ No newline at end of file
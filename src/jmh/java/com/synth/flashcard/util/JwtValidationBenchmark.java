@@ -0,0 +1,76 @@
+package com.synth.flashcard.util;
+
+import com.synth.flashcard.entity.User;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request token handling in the JWT filter: the previous path (key and parser rebuilt on every call,
+ * token verified three times) against a single parse with the cached parser, with and without building
+ * the principal from claims. The database lookup the stateless mode also removes is not part of this.
+ *
+ * Run with: ./mvnw -Pbenchmark test-compile exec:exec -Dbenchmark=JwtValidationBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtValidationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-that-is-long-enough-for-hs512-signing-keys-0123456789";
+
+    private JwtUtil jwtUtil;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "jwtExpiration", 86400000);
+        jwtUtil.init();
+
+        user = new User("student@example.com", "encoded-password");
+        user.setId(42L);
+        user.setSubscriptionTier(User.SubscriptionTier.PRO);
+        token = jwtUtil.generateToken(user);
+    }
+
+    @Benchmark
+    public boolean previousTripleParse() {
+        String username = legacyClaims(token).getSubject();
+        boolean usernameMatches = legacyClaims(token).getSubject().equals(user.getUsername());
+        boolean expired = legacyClaims(token).getExpiration().before(new Date());
+        return username != null && usernameMatches && !expired;
+    }
+
+    @Benchmark
+    public boolean singleParse() {
+        Claims claims = jwtUtil.parseToken(token);
+        return jwtUtil.validateClaims(claims, user);
+    }
+
+    @Benchmark
+    public User singleParseStatelessPrincipal() {
+        return jwtUtil.principalFromClaims(jwtUtil.parseToken(token));
+    }
+
+    // What JwtUtil did per call before the parser was cached
+    private static Claims legacyClaims(String token) {
+        SecretKey key = Keys.hmacShaKeyFor(SECRET.getBytes());
+        return Jwts.parserBuilder()
+                .setSigningKey(key)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package com.synth.flashcard.annotation;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Honors an Idempotency-Key request header on a controller method: the first response is stored
+ * and replayed for retries with the same key, and concurrent duplicates wait for it.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Idempotent {
+    long ttl() default 86400; // Seconds a completed response is replayed
+    long lockTimeout() default 120; // Seconds a request may stay in flight before duplicates give up waiting
+}
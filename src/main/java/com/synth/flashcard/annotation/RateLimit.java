@@ -11,4 +11,21 @@ public @interface RateLimit {
     int limit() default 10; // Number of requests
     int window() default 60; // Time window in seconds
     String key() default ""; // Custom key, defaults to method + IP
+    Quota quota() default Quota.NONE; // Per-user bucket sized by subscription tier, replaces limit and window
+
+    enum Quota {
+        NONE(0),
+        GENERATION(3600), // deck generation from files and text, per hour
+        GRADING(60); // graded answers, per minute
+
+        private final int window;
+
+        Quota(int window) {
+            this.window = window;
+        }
+
+        public int getWindow() {
+            return window;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,271 @@
+package com.synth.flashcard.aspect;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synth.flashcard.annotation.Idempotent;
+import com.synth.flashcard.entity.User;
+import jakarta.servlet.http.HttpServletRequest;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Stores the first response for an Idempotency-Key in Redis and replays it for retries, so a retried
+ * answer or upload does not call Gemini again. While the first request is running, duplicates on this
+ * node wait on its future and duplicates on other nodes poll Redis for the stored result.
+ */
+@Aspect
+@Component
+@Order(1)
+public class IdempotencyAspect {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyAspect.class);
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final long POLL_INTERVAL_MS = 100;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<String, CompletableFuture<StoredResponse>> inFlight = new ConcurrentHashMap<>();
+
+    @Around("@annotation(idempotent)")
+    public Object idempotent(ProceedingJoinPoint joinPoint, Idempotent idempotent) throws Throwable {
+        String idempotencyKey = currentRequest().getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return joinPoint.proceed();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Idempotency-Key is too long");
+        }
+
+        String key = String.format("idempotency:%s:%s:%s",
+            currentUserId(), joinPoint.getSignature().getName(), idempotencyKey);
+        String fingerprint = fingerprint(joinPoint.getArgs());
+
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(idempotent.lockTimeout());
+        while (true) {
+            StoredResponse stored;
+            try {
+                stored = read(key);
+                if (stored == null && acquire(key, fingerprint, idempotent.lockTimeout())) {
+                    return execute(joinPoint, idempotent, key, fingerprint);
+                }
+            } catch (RedisUnavailableException e) {
+                logger.error("Idempotency store unavailable, processing request without it: {}", e.getMessage());
+                return joinPoint.proceed();
+            }
+
+            if (stored != null && !stored.fingerprint.equals(fingerprint)) {
+                throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY,
+                    "Idempotency-Key was already used with a different request");
+            }
+            if (stored != null && stored.completed) {
+                return replay(stored);
+            }
+
+            // Another request with this key is running; wait for it rather than repeating the work
+            CompletableFuture<StoredResponse> local = inFlight.get(key);
+            long remaining = deadline - System.currentTimeMillis();
+            if (remaining <= 0) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "A request with this Idempotency-Key is still being processed");
+            }
+            if (local != null) {
+                try {
+                    StoredResponse result = local.get(remaining, TimeUnit.MILLISECONDS);
+                    if (result != null) {
+                        return replay(result);
+                    }
+                } catch (TimeoutException e) {
+                    continue;
+                } catch (Exception e) {
+                    // The original failed and released the key; loop round and try to take it over
+                }
+            } else {
+                Thread.sleep(Math.min(POLL_INTERVAL_MS, remaining));
+            }
+        }
+    }
+
+    private Object execute(ProceedingJoinPoint joinPoint, Idempotent idempotent, String key, String fingerprint)
+            throws Throwable {
+        CompletableFuture<StoredResponse> future = new CompletableFuture<>();
+        inFlight.put(key, future);
+        try {
+            Object result = joinPoint.proceed();
+            StoredResponse stored = toStored(result, fingerprint);
+            if (stored != null) {
+                store(key, stored, idempotent.ttl());
+            } else {
+                // Only successes are replayed; after an error (often a transient Gemini failure) a retry runs again
+                release(key);
+            }
+            future.complete(stored);
+            return result;
+        } catch (Throwable t) {
+            release(key);
+            future.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    private StoredResponse toStored(Object result, String fingerprint) {
+        if (!(result instanceof ResponseEntity<?> response) || !response.getStatusCode().is2xxSuccessful()) {
+            return null;
+        }
+        try {
+            StoredResponse stored = new StoredResponse();
+            stored.fingerprint = fingerprint;
+            stored.completed = true;
+            stored.status = response.getStatusCode().value();
+            Object body = response.getBody();
+            if (body instanceof String text) {
+                stored.body = text;
+                stored.contentType = MediaType.TEXT_PLAIN_VALUE;
+            } else if (body != null) {
+                stored.body = objectMapper.writeValueAsString(body);
+                stored.contentType = MediaType.APPLICATION_JSON_VALUE;
+            }
+            return stored;
+        } catch (Exception e) {
+            logger.warn("Could not store idempotent response: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private ResponseEntity<String> replay(StoredResponse stored) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(stored.status).header(REPLAYED_HEADER, "true");
+        if (stored.body == null) {
+            return builder.build();
+        }
+        return builder.contentType(MediaType.parseMediaType(stored.contentType)).body(stored.body);
+    }
+
+    private StoredResponse read(String key) {
+        String value;
+        try {
+            value = redisTemplate.opsForValue().get(key);
+        } catch (Exception e) {
+            throw new RedisUnavailableException(e);
+        }
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(value, StoredResponse.class);
+        } catch (Exception e) {
+            logger.warn("Discarding unreadable idempotency record {}: {}", key, e.getMessage());
+            release(key);
+            return null;
+        }
+    }
+
+    private boolean acquire(String key, String fingerprint, long lockTimeout) {
+        StoredResponse pending = new StoredResponse();
+        pending.fingerprint = fingerprint;
+        try {
+            return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(
+                key, objectMapper.writeValueAsString(pending), Duration.ofSeconds(lockTimeout)));
+        } catch (Exception e) {
+            throw new RedisUnavailableException(e);
+        }
+    }
+
+    private void store(String key, StoredResponse stored, long ttl) {
+        try {
+            redisTemplate.opsForValue().set(key, objectMapper.writeValueAsString(stored), Duration.ofSeconds(ttl));
+        } catch (Exception e) {
+            logger.error("Failed to store idempotent response for {}: {}", key, e.getMessage());
+        }
+    }
+
+    private void release(String key) {
+        try {
+            redisTemplate.delete(key);
+        } catch (Exception e) {
+            logger.error("Failed to release idempotency key {}: {}", key, e.getMessage());
+        }
+    }
+
+    // Identifies the request payload so a reused key with a different body is rejected, not replayed
+    private String fingerprint(Object[] args) throws Exception {
+        MessageDigest digest = MessageDigest.getInstance("SHA-256");
+        for (Object arg : args) {
+            if (arg == null || arg instanceof Authentication) {
+                continue;
+            }
+            if (arg instanceof MultipartFile file) {
+                // Streamed through the digest, so a large upload is never held in memory twice
+                try (InputStream in = new DigestInputStream(file.getInputStream(), digest)) {
+                    in.transferTo(OutputStream.nullOutputStream());
+                }
+            } else {
+                digest.update(objectMapper.writeValueAsString(arg).getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private Object currentUserId() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof User user) {
+            return user.getId();
+        }
+        return "anonymous";
+    }
+
+    private HttpServletRequest currentRequest() {
+        return ((ServletRequestAttributes) RequestContextHolder.currentRequestAttributes()).getRequest();
+    }
+
+    private static class StoredResponse {
+        public String fingerprint;
+        public boolean completed;
+        public int status;
+        public String contentType;
+        public String body;
+    }
+
+    private static class RedisUnavailableException extends RuntimeException {
+        RedisUnavailableException(Throwable cause) {
+            super(cause.getMessage(), cause);
+        }
+    }
+}
\ No newline at end of file
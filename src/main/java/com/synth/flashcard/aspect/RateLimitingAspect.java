@@ -1,62 +1,93 @@
 package com.synth.flashcard.aspect;
 
 import com.synth.flashcard.annotation.RateLimit;
+import com.synth.flashcard.entity.User;
+import com.synth.flashcard.service.RateLimiterService;
+import com.synth.flashcard.service.SubscriptionService;
 import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.Around;
 import org.aspectj.lang.annotation.Aspect;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.http.HttpStatus;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.context.request.ServletRequestAttributes;
-import org.springframework.web.server.ResponseStatusException;
-
-import java.time.Duration;
 
+/**
+ * Applies {@link RateLimit} per client IP, or per authenticated user with a tier-dependent limit when
+ * a quota is set. Allowed responses carry RateLimit-Limit, RateLimit-Remaining and RateLimit-Reset;
+ * rejected ones get a 429 with the same headers plus Retry-After.
+ *
+ * Runs inside the idempotency aspect, so replayed retries do not spend quota.
+ */
 @Aspect
 @Component
+@Order(2)
 public class RateLimitingAspect {
 
     private static final Logger logger = LoggerFactory.getLogger(RateLimitingAspect.class);
 
     @Autowired
-    private RedisTemplate<String, String> redisTemplate;
+    private RateLimiterService rateLimiterService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
 
     @Around("@annotation(rateLimit)")
     public Object rateLimit(ProceedingJoinPoint joinPoint, RateLimit rateLimit) throws Throwable {
-        String key = generateKey(joinPoint, rateLimit);
-        
-        try {
-            String currentValue = redisTemplate.opsForValue().get(key);
-            int currentRequests = currentValue != null ? Integer.parseInt(currentValue) : 0;
-
-            if (currentRequests >= rateLimit.limit()) {
-                logger.warn("Rate limit exceeded for key: {}", key);
-                throw new ResponseStatusException(
-                    HttpStatus.TOO_MANY_REQUESTS, 
-                    "Rate limit exceeded. Please try again later."
-                );
-            }
-
-            // Increment the counter
-            redisTemplate.opsForValue().increment(key);
-            
-            // Set expiration only if this is the first request
-            if (currentRequests == 0) {
-                redisTemplate.expire(key, Duration.ofSeconds(rateLimit.window()));
-            }
+        String key;
+        int limit = rateLimit.limit();
+        int window = rateLimit.window();
+        User user = currentUser();
+        if (rateLimit.quota() != RateLimit.Quota.NONE && user != null) {
+            // Keyed by user so students behind one NAT do not share a bucket; the quota names the bucket
+            String bucket = rateLimit.key().isEmpty() ? rateLimit.quota().name().toLowerCase() : rateLimit.key();
+            key = RateLimiterService.userKey(bucket, user.getId());
+            limit = subscriptionService.getRateLimit(user.getSubscriptionTier(), rateLimit.quota());
+            window = rateLimit.quota().getWindow();
+        } else {
+            key = generateKey(joinPoint, rateLimit);
+        }
 
-            return joinPoint.proceed();
-            
+        RateLimiterService.Decision decision;
+        try {
+            decision = rateLimiterService.tryAcquire(key, limit, window);
         } catch (Exception e) {
             // If Redis is down, log error but allow request to proceed
             logger.error("Rate limiting check failed, allowing request: {}", e.getMessage());
             return joinPoint.proceed();
         }
+
+        if (!decision.isAllowed()) {
+            logger.warn("Rate limit exceeded for key: {}", key);
+            // Headers travel on the exception so the error handler's response carries them
+            throw new RateLimiterService.RateLimitExceededException(decision);
+        }
+
+        setResponseHeaders(decision);
+        return joinPoint.proceed();
+    }
+
+    private void setResponseHeaders(RateLimiterService.Decision decision) {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getResponse() != null) {
+            HttpServletResponse response = attributes.getResponse();
+            decision.toHeaders().forEach((name, values) -> response.setHeader(name, values.get(0)));
+        }
+    }
+
+    private User currentUser() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.getPrincipal() instanceof User user) {
+            return user;
+        }
+        return null;
     }
 
     private String generateKey(ProceedingJoinPoint joinPoint, RateLimit rateLimit) {
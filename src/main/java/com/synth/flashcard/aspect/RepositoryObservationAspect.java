@@ -0,0 +1,53 @@
+package com.synth.flashcard.aspect;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Observes every Spring Data repository call as repository.call, so each query and insert shows up as a
+ * span named Repository.method under the request that issued it, and as a timer with the same tags.
+ */
+@Aspect
+@Component
+@ConditionalOnProperty(name = "app.tracing.repositories.enabled", havingValue = "true", matchIfMissing = true)
+public class RepositoryObservationAspect {
+
+    private static final String REPOSITORY_PACKAGE = "com.synth.flashcard.repository";
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    // Proxy class to repository interface name, resolved once per repository
+    private final Map<Class<?>, String> names = new ConcurrentHashMap<>();
+
+    @Around("execution(* org.springframework.data.repository.Repository+.*(..))")
+    public Object observe(ProceedingJoinPoint joinPoint) throws Throwable {
+        String repository = names.computeIfAbsent(joinPoint.getThis().getClass(), type -> repositoryName(joinPoint.getThis()));
+        String method = joinPoint.getSignature().getName();
+        return Observation.createNotStarted("repository.call", observationRegistry)
+            .contextualName(repository + "." + method)
+            .lowCardinalityKeyValue("repository", repository)
+            .lowCardinalityKeyValue("method", method)
+            .observeChecked(() -> joinPoint.proceed());
+    }
+
+    // Inherited methods such as save are declared on CrudRepository, so the name comes from the proxy
+    private static String repositoryName(Object proxy) {
+        for (Class<?> type : AopProxyUtils.proxiedUserInterfaces(proxy)) {
+            if (type.getPackageName().equals(REPOSITORY_PACKAGE)) {
+                return type.getSimpleName();
+            }
+        }
+        return "Repository";
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.synth.flashcard.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+public class AsyncConfig {
+
+    public static final String GRADING_EXECUTOR = "gradingExecutor";
+    public static final String RATE_LIMIT_EXECUTOR = "rateLimitExecutor";
+    public static final String EMAIL_EXECUTOR = "emailExecutor";
+    public static final String MAINTENANCE_EXECUTOR = "maintenanceExecutor";
+
+    @Value("${app.study.grading.pool-size:8}")
+    private int poolSize;
+
+    @Value("${app.study.grading.queue-capacity:500}")
+    private int queueCapacity;
+
+    @Value("${app.email.outbox.concurrency:2}")
+    private int emailConcurrency;
+
+    // Declaring any executor bean switches off Boot's default one, so keep it for plain @Async methods
+    @Bean(name = {"taskExecutor", "applicationTaskExecutor"})
+    @Primary
+    public ThreadPoolTaskExecutor taskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(name = GRADING_EXECUTOR)
+    public ThreadPoolTaskExecutor gradingExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("grading-");
+        // Background grading joins the trace of the answer request that queued it
+        executor.setTaskDecorator(new ContextPropagatingTaskDecorator());
+        // When the backlog is full the request thread grades inline, which degrades to the synchronous path
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Background quota leases; a rejected lease is not retried, the next request leases synchronously
+    @Bean(name = RATE_LIMIT_EXECUTOR)
+    public ThreadPoolTaskExecutor rateLimitExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setQueueCapacity(1000);
+        executor.setThreadNamePrefix("rate-limit-");
+        return executor;
+    }
+
+    // One thread per concurrent outbox worker; the dispatcher never queues more than that
+    @Bean(name = EMAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor emailExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(emailConcurrency);
+        executor.setMaxPoolSize(emailConcurrency);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("email-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        return executor;
+    }
+
+    // Maintenance jobs run one at a time; a tick that finds the thread busy is skipped
+    @Bean(name = MAINTENANCE_EXECUTOR)
+    public ThreadPoolTaskExecutor maintenanceExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("maintenance-");
+        return executor;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,11 @@
+package com.synth.flashcard.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String REVIEW_FORECAST_CACHE = "reviewForecast";
+}
@@ -1,12 +1,18 @@
 package com.synth.flashcard.config;
 
-import com.synth.flashcard.service.UserDetailsServiceImpl;
+import com.synth.flashcard.entity.User;
+import com.synth.flashcard.service.PrincipalCacheService;
 import com.synth.flashcard.util.JwtUtil;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -19,59 +25,62 @@ import java.io.IOException;
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final Logger log = LoggerFactory.getLogger(JwtAuthenticationFilter.class);
+
+    // Every log line written while handling the request carries the caller's id
+    public static final String USER_ID_MDC_KEY = "userId";
+
     @Autowired
     private JwtUtil jwtUtil;
 
     @Autowired
-    private UserDetailsServiceImpl userDetailsService;
+    private PrincipalCacheService principalCacheService;
+
+    @Value("${app.jwt.stateless:false}")
+    private boolean stateless;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
                                     FilterChain filterChain) throws ServletException, IOException {
-        System.out.println("=== JWT FILTER DEBUG ===");
-        System.out.println("Request URL: " + request.getRequestURL());
-        System.out.println("Request URI: " + request.getRequestURI());
-        System.out.println("Method: " + request.getMethod());
-        
         final String requestTokenHeader = request.getHeader("Authorization");
-        System.out.println("Authorization header present: " + (requestTokenHeader != null));
-
-        String username = null;
-        String jwtToken = null;
 
+        Claims claims = null;
         if (requestTokenHeader != null && requestTokenHeader.startsWith("Bearer ")) {
-            jwtToken = requestTokenHeader.substring(7);
-            System.out.println("Token extracted: " + jwtToken.substring(0, 20) + "...");
+            String jwtToken = requestTokenHeader.substring(7);
             try {
-                username = jwtUtil.getUsernameFromToken(jwtToken);
-                System.out.println("Username from token: " + username);
+                // Signature and expiry are verified here, once per request
+                claims = jwtUtil.parseToken(jwtToken);
             } catch (Exception e) {
-                System.err.println("Unable to get JWT Token: " + e.getMessage());
-                logger.error("Unable to get JWT Token", e);
+                // Expired tokens are routine, so no stack trace
+                log.debug("Rejected JWT for {} {}: {}", request.getMethod(), request.getRequestURI(), e.getMessage());
             }
-        } else {
-            System.out.println("No valid Bearer token found");
         }
 
-        if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            System.out.println("Attempting to authenticate user: " + username);
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+        if (claims != null && SecurityContextHolder.getContext().getAuthentication() == null) {
+            // Stateless mode trusts the signed claims; tokens issued before they existed still take the lookup
+            UserDetails userDetails = stateless && jwtUtil.hasPrincipalClaims(claims)
+                    ? jwtUtil.principalFromClaims(claims)
+                    : principalCacheService.load(claims.getSubject());
 
-            if (jwtUtil.validateToken(jwtToken, userDetails)) {
-                System.out.println("Token validation successful");
+            if (jwtUtil.validateClaims(claims, userDetails)) {
                 UsernamePasswordAuthenticationToken usernamePasswordAuthenticationToken =
                         new UsernamePasswordAuthenticationToken(userDetails, null,
                                 userDetails.getAuthorities());
                 usernamePasswordAuthenticationToken
                         .setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
                 SecurityContextHolder.getContext().setAuthentication(usernamePasswordAuthenticationToken);
+                if (userDetails instanceof User user && user.getId() != null) {
+                    MDC.put(USER_ID_MDC_KEY, String.valueOf(user.getId()));
+                }
             } else {
-                System.out.println("Token validation failed");
+                log.debug("JWT subject does not match the loaded principal for {}", request.getRequestURI());
             }
-        } else {
-            System.out.println("Username null or already authenticated");
         }
-        System.out.println("=== END JWT FILTER DEBUG ===");
-        filterChain.doFilter(request, response);
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            MDC.remove(USER_ID_MDC_KEY);
+        }
     }
 }
\ No newline at end of file
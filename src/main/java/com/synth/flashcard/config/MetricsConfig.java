@@ -0,0 +1,19 @@
+package com.synth.flashcard.config;
+
+import io.micrometer.core.instrument.binder.commonspool2.CommonsObjectPool2Metrics;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Meters Boot does not register on its own. Hikari, the task executors and Lettuce command latency are
+ * already bound by the actuator auto-configuration.
+ */
+@Configuration
+public class MetricsConfig {
+
+    // The Lettuce connection pool is a commons-pool2 pool; this reads its JMX beans as commons.pool2.* meters
+    @Bean
+    public CommonsObjectPool2Metrics commonsObjectPool2Metrics() {
+        return new CommonsObjectPool2Metrics();
+    }
+}
\ No newline at end of file
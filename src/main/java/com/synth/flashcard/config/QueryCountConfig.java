@@ -0,0 +1,79 @@
+package com.synth.flashcard.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Counts the SQL statements Hibernate prepares for each HTTP request and logs the total, so endpoint
+ * query budgets (e.g. two statements for a deck with its cards) can be checked against real traffic.
+ * The total is also left on the request, where tests assert it. JdbcTemplate queries bypass Hibernate
+ * and are not counted. Off by default.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.debug.query-count.enabled", havingValue = "true")
+public class QueryCountConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCountConfig.class);
+
+    public static final String STATEMENT_COUNT_ATTRIBUTE = QueryCountConfig.class.getName() + ".statements";
+
+    private static final ThreadLocal<int[]> STATEMENTS = new ThreadLocal<>();
+
+    @Value("${app.debug.query-count.warn-threshold:10}")
+    private int warnThreshold;
+
+    @Bean
+    public HibernatePropertiesCustomizer queryCountCustomizer() {
+        StatementInspector inspector = sql -> {
+            int[] count = STATEMENTS.get();
+            if (count != null) {
+                count[0]++;
+            }
+            return sql;
+        };
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, inspector);
+    }
+
+    // Registered ahead of Spring Security so the principal lookup is part of the count
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> queryCountFilter() {
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                            FilterChain filterChain) throws ServletException, IOException {
+                int[] count = new int[1];
+                STATEMENTS.set(count);
+                try {
+                    filterChain.doFilter(request, response);
+                } finally {
+                    STATEMENTS.remove();
+                    request.setAttribute(STATEMENT_COUNT_ATTRIBUTE, count[0]);
+                    if (count[0] > warnThreshold) {
+                        QueryCountConfig.logger.warn("{} {} ran {} SQL statements", request.getMethod(), request.getRequestURI(), count[0]);
+                    } else {
+                        QueryCountConfig.logger.debug("{} {} ran {} SQL statements", request.getMethod(), request.getRequestURI(), count[0]);
+                    }
+                }
+            }
+        };
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
\ No newline at end of file
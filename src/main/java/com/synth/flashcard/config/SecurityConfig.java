@@ -15,6 +15,8 @@ import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
@@ -37,6 +39,12 @@ public class SecurityConfig {
     @Value("${app.cors.allowed-origins:http://localhost:3000}")
     private String allowedOrigins;
 
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    @Value("${management.server.port:${server.port:8080}}")
+    private int managementPort;
+
     @Bean
     public PasswordEncoder passwordEncoder() {
         return new BCryptPasswordEncoder();
@@ -64,6 +72,11 @@ public class SecurityConfig {
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/subscription/pricing").permitAll()
                         .requestMatchers("/actuator/health", "/actuator/info").permitAll()
+                        // Scraped without a user token, so open only on a separate internal port (MANAGEMENT_PORT)
+                        .requestMatchers(onManagementPort("/actuator/prometheus")).permitAll()
+                        // Spans carry every user's request data, so they are never served on the public port
+                        .requestMatchers(onManagementPort("/actuator/spans/**")).permitAll()
+                        .requestMatchers(AntPathRequestMatcher.antMatcher("/actuator/spans/**")).denyAll()
                         .requestMatchers("/", "/index.html", "/static/**", "/favicon.ico").permitAll()
                         .anyRequest().authenticated()
                 )
@@ -74,12 +87,22 @@ public class SecurityConfig {
         return http.build();
     }
 
+    // Requests that arrived on management.server.port, when that is not also the public port
+    private RequestMatcher onManagementPort(String pattern) {
+        RequestMatcher path = AntPathRequestMatcher.antMatcher(pattern);
+        return request -> managementPort != serverPort
+            && request.getLocalPort() == managementPort
+            && path.matches(request);
+    }
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList(allowedOrigins.split(",")));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With"));
+        configuration.setAllowedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Idempotency-Key", "If-None-Match"));
+        configuration.setExposedHeaders(Arrays.asList("Idempotent-Replayed", "ETag",
+            "RateLimit-Limit", "RateLimit-Remaining", "RateLimit-Reset", "Retry-After"));
         configuration.setAllowCredentials(true);
         configuration.setMaxAge(3600L); // Cache preflight response for 1 hour
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -11,6 +11,8 @@ import com.synth.flashcard.service.PasswordResetService;
 import com.synth.flashcard.service.EmailConfirmationService;
 import com.synth.flashcard.util.JwtUtil;
 import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -23,6 +25,8 @@ import org.springframework.web.bind.annotation.*;
 @RequestMapping("/api/auth")
 public class AuthController {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+
     @Autowired
     private AuthenticationManager authenticationManager;
 
@@ -54,8 +58,12 @@ public class AuthController {
         
         user = userRepository.save(user);
         
-        // Send email confirmation
-        emailConfirmationService.sendEmailConfirmation(user);
+        // Send email confirmation; if queueing fails the account still exists and the user can ask for a resend
+        try {
+            emailConfirmationService.sendEmailConfirmation(user);
+        } catch (Exception e) {
+            logger.error("Failed to queue email confirmation for: {}", user.getEmail(), e);
+        }
         
         String token = jwtUtil.generateToken(user);
         
@@ -1,52 +1,63 @@
 package com.synth.flashcard.controller;
 
+import com.synth.flashcard.annotation.Idempotent;
+import com.synth.flashcard.annotation.RateLimit;
 import com.synth.flashcard.dto.CreateDeckRequest;
+import com.synth.flashcard.dto.DeckDetailDto;
 import com.synth.flashcard.dto.DeckStatsDto;
 import com.synth.flashcard.entity.Deck;
 import com.synth.flashcard.entity.User;
+import com.synth.flashcard.service.DeckVersionService;
 import com.synth.flashcard.service.FlashcardService;
 import com.synth.flashcard.service.SubscriptionService;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/decks")
 public class FlashcardController {
 
+    private static final Logger logger = LoggerFactory.getLogger(FlashcardController.class);
+
+    // Browsers and apps may keep deck payloads but must revalidate them; shared caches must not store them
+    private static final CacheControl PRIVATE_REVALIDATE = CacheControl.noCache().cachePrivate();
+
     @Autowired
     private FlashcardService flashcardService;
 
+    @Autowired
+    private DeckVersionService deckVersionService;
+
     @PostMapping("/upload")
+    @Idempotent(lockTimeout = 300)
+    @RateLimit(quota = RateLimit.Quota.GENERATION)
     public ResponseEntity<?> createDeckFromFile(
             @RequestParam("file") MultipartFile file,
             @RequestParam("name") @NotBlank @Size(min = 1, max = 100) String name,
             @RequestParam(value = "description", required = false) @Size(max = 500) String description,
             Authentication auth) {
         try {
-            System.out.println("=== FILE UPLOAD START ===");
-            System.out.println("File name: " + file.getOriginalFilename());
-            System.out.println("File size: " + file.getSize());
-            System.out.println("Content type: " + file.getContentType());
-            System.out.println("Deck name: " + name);
-            System.out.println("Description: " + description);
-            
             User user = (User) auth.getPrincipal();
-            System.out.println("User ID: " + user.getId());
-            System.out.println("User email: " + user.getEmail());
-            
-            System.out.println("Calling flashcard service...");
+            logger.debug("Deck upload: file={} size={} type={}", file.getOriginalFilename(), file.getSize(), file.getContentType());
+
             Deck deck = flashcardService.createDeckFromFile(user, name, description, file);
-            System.out.println("Deck created with ID: " + deck.getId());
+            logger.debug("Deck {} created from upload", deck.getId());
             
             // Return a simple response to avoid JSON serialization issues
             Map<String, Object> response = Map.of(
@@ -56,24 +67,19 @@ public class FlashcardController {
                 "createdAt", deck.getCreatedAt(),
                 "cardCount", deck.getCards() != null ? deck.getCards().size() : 0
             );
-            
-            System.out.println("Returning response: " + response);
-            System.out.println("=== FILE UPLOAD SUCCESS ===");
+
             return ResponseEntity.ok(response);
         } catch (IOException e) {
-            System.err.println("IO Error: " + e.getMessage());
-            e.printStackTrace();
+            logger.warn("Could not read uploaded file {}: {}", file.getOriginalFilename(), e.getMessage());
             return ResponseEntity.badRequest().body("Error processing file: " + e.getMessage());
         } catch (SubscriptionService.SubscriptionLimitException e) {
-            System.err.println("Subscription Limit Error: " + e.getMessage());
             return ResponseEntity.status(402).body(Map.of(
                 "error", "SUBSCRIPTION_LIMIT_EXCEEDED",
                 "message", e.getMessage(),
                 "upgradeRequired", true
             ));
         } catch (Exception e) {
-            System.err.println("General Error: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Deck creation failed", e);
             
             // Provide user-friendly error messages
             String errorMessage = e.getMessage();
@@ -94,6 +100,8 @@ public class FlashcardController {
     }
 
     @PostMapping("/text")
+    @Idempotent(lockTimeout = 300)
+    @RateLimit(quota = RateLimit.Quota.GENERATION)
     public ResponseEntity<?> createDeckFromText(
             @Valid @RequestBody CreateDeckRequest request,
             Authentication auth) {
@@ -119,8 +127,7 @@ public class FlashcardController {
                 "upgradeRequired", true
             ));
         } catch (Exception e) {
-            System.err.println("General Error: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Deck creation failed", e);
             
             // Provide user-friendly error messages
             String errorMessage = e.getMessage();
@@ -141,10 +148,18 @@ public class FlashcardController {
     }
 
     @GetMapping
-    public ResponseEntity<List<Deck>> getUserDecks(Authentication auth) {
+    public ResponseEntity<List<DeckDetailDto>> getUserDecks(WebRequest webRequest, Authentication auth) {
         User user = (User) auth.getPrincipal();
-        List<Deck> decks = flashcardService.getUserDecks(user.getId());
-        return ResponseEntity.ok(decks);
+        DeckVersionService.ResourceVersion version = deckVersionService.deckListVersion(user.getId());
+        if (webRequest.checkNotModified(version.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version.getEtag()).build();
+        }
+
+        List<DeckDetailDto> decks = flashcardService.getUserDecks(user.getId());
+        return ResponseEntity.ok()
+            .eTag(version.getEtag())
+            .cacheControl(PRIVATE_REVALIDATE)
+            .body(decks);
     }
 
     @GetMapping("/stats")
@@ -155,11 +170,23 @@ public class FlashcardController {
     }
 
     @GetMapping("/{deckId}")
-    public ResponseEntity<?> getDeck(@PathVariable Long deckId, Authentication auth) {
+    public ResponseEntity<?> getDeck(@PathVariable Long deckId, WebRequest webRequest, Authentication auth) {
         try {
             User user = (User) auth.getPrincipal();
-            Deck deck = flashcardService.getDeck(deckId, user.getId());
-            return ResponseEntity.ok(deck);
+            Optional<DeckVersionService.ResourceVersion> version = deckVersionService.deckVersion(deckId, user.getId(), "deck");
+            if (version.isPresent() && webRequest.checkNotModified(version.get().getEtag(), version.get().getLastModified())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version.get().getEtag()).build();
+            }
+
+            DeckDetailDto deck = flashcardService.getDeckDetail(deckId, user.getId());
+            if (version.isEmpty()) {
+                return ResponseEntity.ok(deck);
+            }
+            return ResponseEntity.ok()
+                .eTag(version.get().getEtag())
+                .lastModified(version.get().getLastModified())
+                .cacheControl(PRIVATE_REVALIDATE)
+                .body(deck);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -1,21 +1,52 @@
 package com.synth.flashcard.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synth.flashcard.annotation.Idempotent;
+import com.synth.flashcard.annotation.RateLimit;
+import com.synth.flashcard.dto.CardPriorityDto;
+import com.synth.flashcard.dto.DueCardDto;
+import com.synth.flashcard.dto.DueCardsResponse;
+import com.synth.flashcard.dto.ReviewForecastDto;
+import com.synth.flashcard.dto.StudyBundleDto;
+import com.synth.flashcard.dto.StudyCardDto;
+import com.synth.flashcard.dto.SyncChangesResponse;
+import com.synth.flashcard.dto.SyncReviewsRequest;
+import com.synth.flashcard.dto.SyncReviewsResponse;
 import com.synth.flashcard.entity.Card;
 import com.synth.flashcard.entity.StudyProgress;
 import com.synth.flashcard.entity.StudySession;
 import com.synth.flashcard.entity.User;
 import com.synth.flashcard.repository.CardRepository;
-import com.synth.flashcard.repository.StudyProgressRepository;
 import com.synth.flashcard.repository.StudySessionRepository;
+import com.synth.flashcard.service.DeckVersionService;
+import com.synth.flashcard.service.GradingEventService;
+import com.synth.flashcard.service.OfflineSyncService;
+import com.synth.flashcard.service.ReviewForecastService;
+import com.synth.flashcard.service.SpacedRepetitionService;
+import com.synth.flashcard.service.StudyHistoryExportService;
 import com.synth.flashcard.service.StudyService;
+import com.synth.flashcard.util.KeysetCursor;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/study")
@@ -25,24 +56,146 @@ public class StudyController {
     private StudyService studyService;
 
     @Autowired
-    private CardRepository cardRepository;
+    private SpacedRepetitionService spacedRepetitionService;
 
     @Autowired
-    private StudySessionRepository studySessionRepository;
+    private ReviewForecastService reviewForecastService;
+
+    @Autowired
+    private GradingEventService gradingEventService;
+
+    @Autowired
+    private OfflineSyncService offlineSyncService;
+
+    @Autowired
+    private DeckVersionService deckVersionService;
+
+    @Autowired
+    private StudyHistoryExportService studyHistoryExportService;
 
     @Autowired
-    private StudyProgressRepository studyProgressRepository;
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private StudySessionRepository studySessionRepository;
 
     @GetMapping("/deck/{deckId}")
-    public ResponseEntity<List<Card>> getCardsForStudy(
+    public ResponseEntity<List<StudyCardDto>> getCardsForStudy(
+            @PathVariable Long deckId,
+            @RequestParam(required = false) String order,
+            WebRequest webRequest,
+            Authentication auth) {
+        User user = (User) auth.getPrincipal();
+        if ("priority".equalsIgnoreCase(order)) {
+            // Priority order moves with the user's schedule, so it is not cached
+            return ResponseEntity.ok(studyService.getCardsForStudyByPriority(deckId, user.getId()));
+        }
+
+        Optional<DeckVersionService.ResourceVersion> version = deckVersionService.deckVersion(deckId, user.getId(), "cards");
+        if (version.isPresent() && webRequest.checkNotModified(version.get().getEtag(), version.get().getLastModified())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(version.get().getEtag()).build();
+        }
+        List<StudyCardDto> cards = studyService.getCardsForStudy(deckId, user.getId());
+        if (version.isEmpty()) {
+            return ResponseEntity.ok(cards);
+        }
+        return ResponseEntity.ok()
+            .eTag(version.get().getEtag())
+            .lastModified(version.get().getLastModified())
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .body(cards);
+    }
+
+    @GetMapping("/deck/{deckId}/priorities")
+    public ResponseEntity<List<CardPriorityDto>> getPriorityScores(
+            @PathVariable Long deckId,
+            Authentication auth) {
+        User user = (User) auth.getPrincipal();
+        return ResponseEntity.ok(spacedRepetitionService.getPriorityScores(deckId, user.getId()));
+    }
+
+    @GetMapping("/due")
+    public ResponseEntity<DueCardsResponse> getDueCards(
+            @RequestParam(defaultValue = "20") int limit,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Long deckId,
+            Authentication auth) {
+        User user = (User) auth.getPrincipal();
+        DueCardsResponse dueCards = studyService.getDueCards(user.getId(), deckId, limit, after);
+        return ResponseEntity.ok(dueCards);
+    }
+
+    @GetMapping("/next")
+    public ResponseEntity<List<DueCardDto>> getNextDueCards(
+            @RequestParam(defaultValue = "10") int limit,
+            Authentication auth) {
+        User user = (User) auth.getPrincipal();
+        return ResponseEntity.ok(studyService.getNextDueCards(user.getId(), limit));
+    }
+
+    @GetMapping("/forecast")
+    public ResponseEntity<ReviewForecastDto> getReviewForecast(
+            @RequestParam(defaultValue = "30") int days,
+            Authentication auth) {
+        User user = (User) auth.getPrincipal();
+        return ResponseEntity.ok(reviewForecastService.getForecast(user.getId(), days));
+    }
+
+    @GetMapping("/deck/{deckId}/bundle")
+    public ResponseEntity<byte[]> getStudyBundle(
             @PathVariable Long deckId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest,
+            Authentication auth) throws IOException {
+        User user = (User) auth.getPrincipal();
+        // A missing or foreign deck is a 404 from the service; anything else is a real error
+        StudyBundleDto bundle = offlineSyncService.exportBundle(deckId, user.getId());
+
+        String etag = offlineSyncService.bundleEtag(bundle);
+        if (webRequest.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        byte[] json = objectMapper.writeValueAsBytes(bundle);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+            .eTag(etag)
+            .cacheControl(CacheControl.noCache().cachePrivate())
+            .varyBy(HttpHeaders.ACCEPT_ENCODING)
+            .contentType(MediaType.APPLICATION_JSON);
+        if (acceptEncoding == null || !acceptEncoding.contains("gzip")) {
+            return response.body(json);
+        }
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(json);
+        }
+        return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(compressed.toByteArray());
+    }
+
+    @PostMapping("/sync/reviews")
+    @Idempotent
+    public ResponseEntity<SyncReviewsResponse> syncReviews(
+            @Valid @RequestBody SyncReviewsRequest request,
             Authentication auth) {
         User user = (User) auth.getPrincipal();
-        List<Card> cards = studyService.getCardsForStudy(deckId, user.getId());
-        return ResponseEntity.ok(cards);
+        return ResponseEntity.ok(offlineSyncService.syncReviews(user, request.getReviews()));
+    }
+
+    @GetMapping("/sync/changes")
+    public ResponseEntity<SyncChangesResponse> getSyncChanges(
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "200") int limit,
+            Authentication auth) {
+        User user = (User) auth.getPrincipal();
+        return ResponseEntity.ok(offlineSyncService.getChanges(user.getId(), since, limit));
     }
 
     @PostMapping("/answer")
+    @Idempotent
+    @RateLimit(quota = RateLimit.Quota.GRADING)
     public ResponseEntity<?> submitAnswer(
             @RequestBody Map<String, Object> request,
             Authentication auth) {
@@ -51,9 +204,16 @@ public class StudyController {
             Long cardId = Long.valueOf(request.get("cardId").toString());
             String userAnswer = request.get("answer").toString();
 
-            Card card = cardRepository.findById(cardId)
+            Card card = cardRepository.findOwnedById(cardId, user.getId())
                 .orElseThrow(() -> new RuntimeException("Card not found"));
 
+            // Async mode returns a provisional grade right away; the final one arrives on /grading/stream
+            boolean async = Boolean.parseBoolean(String.valueOf(request.getOrDefault("async", false)));
+            if (async) {
+                StudySession session = studyService.submitAnswerAsync(user, card, userAnswer);
+                return ResponseEntity.accepted().body(session);
+            }
+
             StudySession session = studyService.submitAnswer(user, card, userAnswer);
             return ResponseEntity.ok(session);
         } catch (Exception e) {
@@ -61,21 +221,61 @@ public class StudyController {
         }
     }
 
+    @GetMapping(value = "/grading/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamGradingEvents(Authentication auth) {
+        User user = (User) auth.getPrincipal();
+        return gradingEventService.connect(user.getId());
+    }
+
+    @GetMapping("/sessions/{sessionId}")
+    public ResponseEntity<StudySession> getStudySession(
+            @PathVariable Long sessionId,
+            Authentication auth) {
+        User user = (User) auth.getPrincipal();
+        return studySessionRepository.findById(sessionId)
+            .filter(session -> session.getUser().getId().equals(user.getId()))
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/sessions")
     public ResponseEntity<List<StudySession>> getStudySessions(Authentication auth) {
         User user = (User) auth.getPrincipal();
-        List<StudySession> sessions = studySessionRepository
-            .findByUserIdOrderByStudiedAtDesc(user.getId());
+        List<StudySession> sessions = studyService.getStudySessions(user.getId());
         return ResponseEntity.ok(sessions);
     }
 
+    @GetMapping("/sessions/export")
+    public ResponseEntity<StreamingResponseBody> exportStudySessions(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String after,
+            @RequestParam(required = false) Integer limit,
+            Authentication auth) {
+        User user = (User) auth.getPrincipal();
+        // Validate everything up front; once streaming starts the status can no longer change
+        StudyHistoryExportService.Format exportFormat = StudyHistoryExportService.Format.parse(format);
+        KeysetCursor cursor = after != null ? KeysetCursor.decode(after) : null;
+        if (limit != null && (limit < 1 || limit > StudyHistoryExportService.MAX_LIMIT)) {
+            throw new IllegalArgumentException("limit must be between 1 and " + StudyHistoryExportService.MAX_LIMIT);
+        }
+
+        StreamingResponseBody body = out ->
+            studyHistoryExportService.export(user.getId(), exportFormat, from, to, cursor, limit, out);
+        return ResponseEntity.ok()
+            .contentType(exportFormat.getMediaType())
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"study-history." + exportFormat.getExtension() + "\"")
+            .cacheControl(CacheControl.noStore())
+            .body(body);
+    }
+
     @GetMapping("/analytics")
     public ResponseEntity<Map<String, Object>> getAnalytics(Authentication auth) {
         User user = (User) auth.getPrincipal();
         
         // Get user sessions
-        List<StudySession> allSessions = studySessionRepository
-            .findByUserIdOrderByStudiedAtDesc(user.getId());
+        List<StudySession> allSessions = studyService.getStudySessions(user.getId());
         
         // Get average score for the last 30 days
         LocalDateTime thirtyDaysAgo = LocalDateTime.now().minusDays(30);
@@ -101,7 +301,7 @@ public class StudyController {
             @PathVariable Long deckId,
             Authentication auth) {
         User user = (User) auth.getPrincipal();
-        return studyProgressRepository.findActiveProgressByUserAndDeck(user.getId(), deckId)
+        return studyService.getActiveProgress(user.getId(), deckId)
             .map(ResponseEntity::ok)
             .orElse(ResponseEntity.notFound().build());
     }
@@ -130,7 +330,7 @@ public class StudyController {
     @GetMapping("/progress")
     public ResponseEntity<List<StudyProgress>> getActiveProgress(Authentication auth) {
         User user = (User) auth.getPrincipal();
-        List<StudyProgress> activeProgress = studyProgressRepository.findActiveProgressByUser(user.getId());
+        List<StudyProgress> activeProgress = studyService.getActiveProgress(user.getId());
         return ResponseEntity.ok(activeProgress);
     }
 
@@ -139,8 +339,7 @@ public class StudyController {
             @PathVariable Long deckId,
             Authentication auth) {
         User user = (User) auth.getPrincipal();
-        studyProgressRepository.findActiveProgressByUserAndDeck(user.getId(), deckId)
-            .ifPresent(studyProgressRepository::delete);
+        studyService.clearStudyProgress(user.getId(), deckId);
         return ResponseEntity.ok().build();
     }
 }
\ No newline at end of file
@@ -2,7 +2,9 @@ package com.synth.flashcard.controller;
 
 import com.synth.flashcard.entity.User;
 import com.synth.flashcard.repository.UserRepository;
+import com.synth.flashcard.service.PrincipalCacheService;
 import com.synth.flashcard.service.SubscriptionService;
+import com.synth.flashcard.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
@@ -20,6 +22,12 @@ public class SubscriptionController {
     @Autowired
     private SubscriptionService subscriptionService;
 
+    @Autowired
+    private PrincipalCacheService principalCacheService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
     @GetMapping("/status")
     public ResponseEntity<Map<String, Object>> getSubscriptionStatus(Authentication auth) {
         User user = (User) auth.getPrincipal();
@@ -35,7 +43,9 @@ public class SubscriptionController {
             "limits", Map.of(
                 "maxDecks", limits.getMaxDecks() == Integer.MAX_VALUE ? -1 : limits.getMaxDecks(),
                 "maxCardsPerDeck", limits.getMaxCardsPerDeck() == Integer.MAX_VALUE ? -1 : limits.getMaxCardsPerDeck(),
-                "hasAdvancedFeatures", limits.hasAdvancedFeatures()
+                "hasAdvancedFeatures", limits.hasAdvancedFeatures(),
+                "generationsPerHour", limits.getGenerationsPerHour(),
+                "gradedAnswersPerMinute", limits.getGradedAnswersPerMinute()
             ),
             "usage", Map.of(
                 "currentDecks", userRepository.findById(user.getId()).get().getDecks().size()
@@ -80,12 +90,18 @@ public class SubscriptionController {
             
             // In a real application, you would integrate with a payment processor here
             // For now, we'll just update the tier directly (demo purposes)
-            user.setSubscriptionTier(newTier);
-            userRepository.save(user);
+            // The principal may be built from token claims, so the stored user is the one changed
+            User stored = userRepository.findById(user.getId())
+                .orElseThrow(() -> new RuntimeException("User not found"));
+            stored.setSubscriptionTier(newTier);
+            userRepository.save(stored);
+            principalCacheService.invalidate(stored.getEmail());
             
+            // Fresh token so clients on stateless auth pick up the new tier without logging in again
             return ResponseEntity.ok(Map.of(
                 "message", "Subscription upgraded successfully",
-                "newTier", newTier.name()
+                "newTier", newTier.name(),
+                "token", jwtUtil.generateToken(stored)
             ));
             
         } catch (IllegalArgumentException e) {
@@ -0,0 +1,16 @@
+package com.synth.flashcard.dto;
+
+public class CardPriorityDto {
+    private Long cardId;
+    private int priority;
+
+    public CardPriorityDto(Long cardId, int priority) {
+        this.cardId = cardId;
+        this.priority = priority;
+    }
+
+    public Long getCardId() { return cardId; }
+    public void setCardId(Long cardId) { this.cardId = cardId; }
+    public int getPriority() { return priority; }
+    public void setPriority(int priority) { this.priority = priority; }
+}
@@ -0,0 +1,47 @@
+package com.synth.flashcard.dto;
+
+import com.synth.flashcard.entity.Card;
+
+import java.time.LocalDateTime;
+
+/**
+ * A card joined with the studying user's review state; state columns are null for never-scheduled cards.
+ */
+public class CardScheduleDto {
+    private Long cardId;
+    private String question;
+    private String answer;
+    private Card.Difficulty difficulty;
+    private LocalDateTime dueAt;
+    private Integer reviewCount;
+    private Double stability;
+    private Double intervalDays;
+    private LocalDateTime lastReviewedAt;
+    private int priority;
+
+    public CardScheduleDto(Long cardId, String question, String answer, Card.Difficulty difficulty,
+                           LocalDateTime dueAt, Integer reviewCount, Double stability, Double intervalDays,
+                           LocalDateTime lastReviewedAt) {
+        this.cardId = cardId;
+        this.question = question;
+        this.answer = answer;
+        this.difficulty = difficulty;
+        this.dueAt = dueAt;
+        this.reviewCount = reviewCount;
+        this.stability = stability;
+        this.intervalDays = intervalDays;
+        this.lastReviewedAt = lastReviewedAt;
+    }
+
+    public Long getCardId() { return cardId; }
+    public String getQuestion() { return question; }
+    public String getAnswer() { return answer; }
+    public Card.Difficulty getDifficulty() { return difficulty; }
+    public LocalDateTime getDueAt() { return dueAt; }
+    public Integer getReviewCount() { return reviewCount; }
+    public Double getStability() { return stability; }
+    public Double getIntervalDays() { return intervalDays; }
+    public LocalDateTime getLastReviewedAt() { return lastReviewedAt; }
+    public int getPriority() { return priority; }
+    public void setPriority(int priority) { this.priority = priority; }
+}
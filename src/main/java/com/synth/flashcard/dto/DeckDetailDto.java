@@ -0,0 +1,34 @@
+package com.synth.flashcard.dto;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Read model for deck endpoints: deck columns plus its cards, with no owner or lazy associations to walk
+public class DeckDetailDto {
+    private Long id;
+    private String name;
+    private String description;
+    private LocalDateTime createdAt;
+    private List<StudyCardDto> cards = new ArrayList<>();
+
+    public DeckDetailDto() {}
+
+    public DeckDetailDto(Long id, String name, String description, LocalDateTime createdAt) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+        this.createdAt = createdAt;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+    public LocalDateTime getCreatedAt() { return createdAt; }
+    public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+    public List<StudyCardDto> getCards() { return cards; }
+    public void setCards(List<StudyCardDto> cards) { this.cards = cards; }
+}
\ No newline at end of file
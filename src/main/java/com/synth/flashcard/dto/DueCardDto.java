@@ -0,0 +1,47 @@
+package com.synth.flashcard.dto;
+
+import com.synth.flashcard.entity.Card;
+
+import java.time.LocalDateTime;
+
+public class DueCardDto {
+    private Long id;
+    private Long deckId;
+    private String deckName;
+    private String question;
+    private String answer;
+    private Card.Difficulty difficulty;
+    private LocalDateTime dueAt;
+    private Integer reviewCount;
+
+    public DueCardDto() {}
+
+    public DueCardDto(Long id, Long deckId, String deckName, String question, String answer,
+                      Card.Difficulty difficulty, LocalDateTime dueAt, Integer reviewCount) {
+        this.id = id;
+        this.deckId = deckId;
+        this.deckName = deckName;
+        this.question = question;
+        this.answer = answer;
+        this.difficulty = difficulty;
+        this.dueAt = dueAt;
+        this.reviewCount = reviewCount;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getDeckId() { return deckId; }
+    public void setDeckId(Long deckId) { this.deckId = deckId; }
+    public String getDeckName() { return deckName; }
+    public void setDeckName(String deckName) { this.deckName = deckName; }
+    public String getQuestion() { return question; }
+    public void setQuestion(String question) { this.question = question; }
+    public String getAnswer() { return answer; }
+    public void setAnswer(String answer) { this.answer = answer; }
+    public Card.Difficulty getDifficulty() { return difficulty; }
+    public void setDifficulty(Card.Difficulty difficulty) { this.difficulty = difficulty; }
+    public LocalDateTime getDueAt() { return dueAt; }
+    public void setDueAt(LocalDateTime dueAt) { this.dueAt = dueAt; }
+    public Integer getReviewCount() { return reviewCount; }
+    public void setReviewCount(Integer reviewCount) { this.reviewCount = reviewCount; }
+}
@@ -0,0 +1,18 @@
+package com.synth.flashcard.dto;
+
+import java.util.List;
+
+public class DueCardsResponse {
+    private List<DueCardDto> cards;
+    private String nextCursor;
+
+    public DueCardsResponse(List<DueCardDto> cards, String nextCursor) {
+        this.cards = cards;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<DueCardDto> getCards() { return cards; }
+    public void setCards(List<DueCardDto> cards) { this.cards = cards; }
+    public String getNextCursor() { return nextCursor; }
+    public void setNextCursor(String nextCursor) { this.nextCursor = nextCursor; }
+}
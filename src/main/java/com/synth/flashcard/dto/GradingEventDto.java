@@ -0,0 +1,41 @@
+package com.synth.flashcard.dto;
+
+import com.synth.flashcard.entity.StudySession;
+
+public class GradingEventDto {
+    private Long userId;
+    private Long sessionId;
+    private Long cardId;
+    private Double score;
+    private Double confidence;
+    private String feedback;
+    private StudySession.GradingStatus status;
+
+    public GradingEventDto() {}
+
+    public GradingEventDto(Long userId, Long sessionId, Long cardId, Double score, Double confidence,
+                           String feedback, StudySession.GradingStatus status) {
+        this.userId = userId;
+        this.sessionId = sessionId;
+        this.cardId = cardId;
+        this.score = score;
+        this.confidence = confidence;
+        this.feedback = feedback;
+        this.status = status;
+    }
+
+    public Long getUserId() { return userId; }
+    public void setUserId(Long userId) { this.userId = userId; }
+    public Long getSessionId() { return sessionId; }
+    public void setSessionId(Long sessionId) { this.sessionId = sessionId; }
+    public Long getCardId() { return cardId; }
+    public void setCardId(Long cardId) { this.cardId = cardId; }
+    public Double getScore() { return score; }
+    public void setScore(Double score) { this.score = score; }
+    public Double getConfidence() { return confidence; }
+    public void setConfidence(Double confidence) { this.confidence = confidence; }
+    public String getFeedback() { return feedback; }
+    public void setFeedback(String feedback) { this.feedback = feedback; }
+    public StudySession.GradingStatus getStatus() { return status; }
+    public void setStatus(StudySession.GradingStatus status) { this.status = status; }
+}
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.synth.flashcard.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.time.LocalDateTime;
+
+public class OfflineReviewDto {
+    @NotBlank(message = "clientReviewId is required")
+    @Size(max = 64, message = "clientReviewId must not exceed 64 characters")
+    private String clientReviewId;
+
+    @NotNull(message = "cardId is required")
+    private Long cardId;
+
+    @Size(max = 5000, message = "Answer must not exceed 5000 characters")
+    private String answer;
+
+    // Self-assessed score; when absent the answer is graded on the server
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private Double score;
+
+    @NotNull(message = "reviewedAt is required")
+    private LocalDateTime reviewedAt;
+
+    public String getClientReviewId() { return clientReviewId; }
+    public void setClientReviewId(String clientReviewId) { this.clientReviewId = clientReviewId; }
+    public Long getCardId() { return cardId; }
+    public void setCardId(Long cardId) { this.cardId = cardId; }
+    public String getAnswer() { return answer; }
+    public void setAnswer(String answer) { this.answer = answer; }
+    public Double getScore() { return score; }
+    public void setScore(Double score) { this.score = score; }
+    public LocalDateTime getReviewedAt() { return reviewedAt; }
+    public void setReviewedAt(LocalDateTime reviewedAt) { this.reviewedAt = reviewedAt; }
+}
@@ -0,0 +1,34 @@
+package com.synth.flashcard.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+public class ReviewForecastDto implements Serializable {
+    private LocalDate startDate;
+    private int days;
+    private long overdue;
+    private long total;
+    // dailyCounts[0] is today and includes overdue cards
+    private long[] dailyCounts;
+
+    public ReviewForecastDto() {}
+
+    public ReviewForecastDto(LocalDate startDate, int days, long overdue, long total, long[] dailyCounts) {
+        this.startDate = startDate;
+        this.days = days;
+        this.overdue = overdue;
+        this.total = total;
+        this.dailyCounts = dailyCounts;
+    }
+
+    public LocalDate getStartDate() { return startDate; }
+    public void setStartDate(LocalDate startDate) { this.startDate = startDate; }
+    public int getDays() { return days; }
+    public void setDays(int days) { this.days = days; }
+    public long getOverdue() { return overdue; }
+    public void setOverdue(long overdue) { this.overdue = overdue; }
+    public long getTotal() { return total; }
+    public void setTotal(long total) { this.total = total; }
+    public long[] getDailyCounts() { return dailyCounts; }
+    public void setDailyCounts(long[] dailyCounts) { this.dailyCounts = dailyCounts; }
+}
@@ -0,0 +1,31 @@
+package com.synth.flashcard.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public class StudyBundleDto {
+    private Long deckId;
+    private String deckName;
+    private LocalDateTime generatedAt;
+    private String cursor; // Pass to /api/study/sync/changes to receive later schedule updates
+    private List<SyncCardDto> cards;
+
+    public StudyBundleDto(Long deckId, String deckName, LocalDateTime generatedAt, String cursor, List<SyncCardDto> cards) {
+        this.deckId = deckId;
+        this.deckName = deckName;
+        this.generatedAt = generatedAt;
+        this.cursor = cursor;
+        this.cards = cards;
+    }
+
+    public Long getDeckId() { return deckId; }
+    public void setDeckId(Long deckId) { this.deckId = deckId; }
+    public String getDeckName() { return deckName; }
+    public void setDeckName(String deckName) { this.deckName = deckName; }
+    public LocalDateTime getGeneratedAt() { return generatedAt; }
+    public void setGeneratedAt(LocalDateTime generatedAt) { this.generatedAt = generatedAt; }
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+    public List<SyncCardDto> getCards() { return cards; }
+    public void setCards(List<SyncCardDto> cards) { this.cards = cards; }
+}
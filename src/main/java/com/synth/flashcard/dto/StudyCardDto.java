@@ -0,0 +1,33 @@
+package com.synth.flashcard.dto;
+
+import com.synth.flashcard.entity.Card;
+
+// Read model for a card shown during study or in a deck; built by constructor projection, never from the entity
+public class StudyCardDto {
+    private Long id;
+    private Long deckId;
+    private String question;
+    private String answer;
+    private Card.Difficulty difficulty;
+
+    public StudyCardDto() {}
+
+    public StudyCardDto(Long id, Long deckId, String question, String answer, Card.Difficulty difficulty) {
+        this.id = id;
+        this.deckId = deckId;
+        this.question = question;
+        this.answer = answer;
+        this.difficulty = difficulty;
+    }
+
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+    public Long getDeckId() { return deckId; }
+    public void setDeckId(Long deckId) { this.deckId = deckId; }
+    public String getQuestion() { return question; }
+    public void setQuestion(String question) { this.question = question; }
+    public String getAnswer() { return answer; }
+    public void setAnswer(String answer) { this.answer = answer; }
+    public Card.Difficulty getDifficulty() { return difficulty; }
+    public void setDifficulty(Card.Difficulty difficulty) { this.difficulty = difficulty; }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.synth.flashcard.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.synth.flashcard.entity.Card;
+
+import java.time.LocalDateTime;
+
+// Card plus the user's schedule for offline study; null schedule fields are left out to keep bundles small
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SyncCardDto {
+    private Long cardId;
+    private Long deckId;
+    private String question;
+    private String answer;
+    private Card.Difficulty difficulty;
+    private LocalDateTime dueAt;
+    private Integer reviewCount;
+    private Double lastScore;
+    private LocalDateTime lastReviewedAt;
+    private Double intervalDays;
+    private LocalDateTime updatedAt;
+
+    public SyncCardDto() {}
+
+    public SyncCardDto(Long cardId, Long deckId, String question, String answer, Card.Difficulty difficulty,
+                       LocalDateTime dueAt, Integer reviewCount, Double lastScore, LocalDateTime lastReviewedAt,
+                       Double intervalDays, LocalDateTime updatedAt) {
+        this.cardId = cardId;
+        this.deckId = deckId;
+        this.question = question;
+        this.answer = answer;
+        this.difficulty = difficulty;
+        this.dueAt = dueAt;
+        this.reviewCount = reviewCount;
+        this.lastScore = lastScore;
+        this.lastReviewedAt = lastReviewedAt;
+        this.intervalDays = intervalDays;
+        this.updatedAt = updatedAt;
+    }
+
+    public Long getCardId() { return cardId; }
+    public void setCardId(Long cardId) { this.cardId = cardId; }
+    public Long getDeckId() { return deckId; }
+    public void setDeckId(Long deckId) { this.deckId = deckId; }
+    public String getQuestion() { return question; }
+    public void setQuestion(String question) { this.question = question; }
+    public String getAnswer() { return answer; }
+    public void setAnswer(String answer) { this.answer = answer; }
+    public Card.Difficulty getDifficulty() { return difficulty; }
+    public void setDifficulty(Card.Difficulty difficulty) { this.difficulty = difficulty; }
+    public LocalDateTime getDueAt() { return dueAt; }
+    public void setDueAt(LocalDateTime dueAt) { this.dueAt = dueAt; }
+    public Integer getReviewCount() { return reviewCount; }
+    public void setReviewCount(Integer reviewCount) { this.reviewCount = reviewCount; }
+    public Double getLastScore() { return lastScore; }
+    public void setLastScore(Double lastScore) { this.lastScore = lastScore; }
+    public LocalDateTime getLastReviewedAt() { return lastReviewedAt; }
+    public void setLastReviewedAt(LocalDateTime lastReviewedAt) { this.lastReviewedAt = lastReviewedAt; }
+    public Double getIntervalDays() { return intervalDays; }
+    public void setIntervalDays(Double intervalDays) { this.intervalDays = intervalDays; }
+    public LocalDateTime getUpdatedAt() { return updatedAt; }
+    public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
+}
@@ -0,0 +1,31 @@
+package com.synth.flashcard.dto;
+
+import java.util.List;
+
+public class SyncChangesResponse {
+    private List<SyncCardDto> changes;
+    private String cursor;
+    private boolean hasMore;
+    private List<Long> deletedDeckIds;
+    private boolean fullResync;
+
+    public SyncChangesResponse(List<SyncCardDto> changes, String cursor, boolean hasMore,
+                               List<Long> deletedDeckIds, boolean fullResync) {
+        this.changes = changes;
+        this.cursor = cursor;
+        this.hasMore = hasMore;
+        this.deletedDeckIds = deletedDeckIds;
+        this.fullResync = fullResync;
+    }
+
+    public List<SyncCardDto> getChanges() { return changes; }
+    public void setChanges(List<SyncCardDto> changes) { this.changes = changes; }
+    public String getCursor() { return cursor; }
+    public void setCursor(String cursor) { this.cursor = cursor; }
+    public boolean isHasMore() { return hasMore; }
+    public void setHasMore(boolean hasMore) { this.hasMore = hasMore; }
+    public List<Long> getDeletedDeckIds() { return deletedDeckIds; }
+    public void setDeletedDeckIds(List<Long> deletedDeckIds) { this.deletedDeckIds = deletedDeckIds; }
+    public boolean isFullResync() { return fullResync; }
+    public void setFullResync(boolean fullResync) { this.fullResync = fullResync; }
+}
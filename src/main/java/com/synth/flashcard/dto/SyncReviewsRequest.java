@@ -0,0 +1,16 @@
+package com.synth.flashcard.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+
+import java.util.List;
+
+public class SyncReviewsRequest {
+    @NotNull(message = "reviews is required")
+    @Size(max = 500, message = "At most 500 reviews per sync")
+    private List<@Valid OfflineReviewDto> reviews;
+
+    public List<OfflineReviewDto> getReviews() { return reviews; }
+    public void setReviews(List<OfflineReviewDto> reviews) { this.reviews = reviews; }
+}
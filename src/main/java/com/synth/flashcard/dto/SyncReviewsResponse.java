@@ -0,0 +1,31 @@
+package com.synth.flashcard.dto;
+
+import java.util.List;
+
+public class SyncReviewsResponse {
+    private int accepted;
+    private List<String> duplicates; // clientReviewIds already applied by an earlier sync
+    private List<String> rejected;   // clientReviewIds for cards the user does not own
+    private List<String> ungraded;   // clientReviewIds kept at their provisional score because the grading quota ran out
+    private List<SyncCardDto> states; // Updated schedule of every card in the batch
+
+    public SyncReviewsResponse(int accepted, List<String> duplicates, List<String> rejected, List<String> ungraded,
+                               List<SyncCardDto> states) {
+        this.accepted = accepted;
+        this.duplicates = duplicates;
+        this.rejected = rejected;
+        this.ungraded = ungraded;
+        this.states = states;
+    }
+
+    public int getAccepted() { return accepted; }
+    public void setAccepted(int accepted) { this.accepted = accepted; }
+    public List<String> getDuplicates() { return duplicates; }
+    public void setDuplicates(List<String> duplicates) { this.duplicates = duplicates; }
+    public List<String> getRejected() { return rejected; }
+    public void setRejected(List<String> rejected) { this.rejected = rejected; }
+    public List<String> getUngraded() { return ungraded; }
+    public void setUngraded(List<String> ungraded) { this.ungraded = ungraded; }
+    public List<SyncCardDto> getStates() { return states; }
+    public void setStates(List<SyncCardDto> states) { this.states = states; }
+}
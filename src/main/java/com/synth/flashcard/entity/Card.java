@@ -3,11 +3,14 @@ package com.synth.flashcard.entity;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.List;
 
 @Entity
-@Table(name = "cards")
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "cards")
+@Table(name = "cards", indexes = @Index(name = "idx_card_deck", columnList = "deck_id"))
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Card {
     
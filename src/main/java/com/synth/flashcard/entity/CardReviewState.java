@@ -0,0 +1,187 @@
+package com.synth.flashcard.entity;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "card_review_states",
+       uniqueConstraints = @UniqueConstraint(name = "uk_review_state_user_card", columnNames = {"user_id", "card_id"}),
+       indexes = {
+           @Index(name = "idx_review_state_user_due", columnList = "user_id, due_at, card_id"),
+           @Index(name = "idx_review_state_user_deck_due", columnList = "user_id, deck_id, due_at, card_id"),
+           @Index(name = "idx_review_state_user_updated", columnList = "user_id, updated_at, card_id")
+       })
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
+public class CardReviewState {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id", nullable = false)
+    @JsonIgnoreProperties({"decks", "studySessions", "hibernateLazyInitializer", "handler"})
+    private User user;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "card_id", nullable = false)
+    @JsonIgnoreProperties({"deck", "studySessions", "hibernateLazyInitializer", "handler"})
+    private Card card;
+
+    // Denormalized from the card so the per-deck queue is a single index range scan
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "deck_id", nullable = false)
+    @JsonIgnoreProperties({"cards", "user", "hibernateLazyInitializer", "handler"})
+    private Deck deck;
+
+    @Column(name = "due_at", nullable = false)
+    private LocalDateTime dueAt;
+
+    @Column(name = "review_count", nullable = false)
+    private Integer reviewCount = 0;
+
+    @Column(name = "last_score")
+    private Double lastScore;
+
+    @Column(name = "last_reviewed_at")
+    private LocalDateTime lastReviewedAt;
+
+    // Scheduler engine state; nullable so rows written before the engine columns existed still load
+    @Column(name = "ease")
+    private Double ease;
+
+    @Column(name = "stability")
+    private Double stability;
+
+    @Column(name = "memory_difficulty")
+    private Double memoryDifficulty;
+
+    @Column(name = "interval_days")
+    private Double intervalDays;
+
+    // Change cursor for offline delta sync
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @PrePersist
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
+    }
+
+    public CardReviewState() {}
+
+    public CardReviewState(User user, Card card, Deck deck, LocalDateTime dueAt) {
+        this.user = user;
+        this.card = card;
+        this.deck = deck;
+        this.dueAt = dueAt;
+    }
+
+    // Getters and setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public User getUser() {
+        return user;
+    }
+
+    public void setUser(User user) {
+        this.user = user;
+    }
+
+    public Card getCard() {
+        return card;
+    }
+
+    public void setCard(Card card) {
+        this.card = card;
+    }
+
+    public Deck getDeck() {
+        return deck;
+    }
+
+    public void setDeck(Deck deck) {
+        this.deck = deck;
+    }
+
+    public LocalDateTime getDueAt() {
+        return dueAt;
+    }
+
+    public void setDueAt(LocalDateTime dueAt) {
+        this.dueAt = dueAt;
+    }
+
+    public Integer getReviewCount() {
+        return reviewCount;
+    }
+
+    public void setReviewCount(Integer reviewCount) {
+        this.reviewCount = reviewCount;
+    }
+
+    public Double getLastScore() {
+        return lastScore;
+    }
+
+    public void setLastScore(Double lastScore) {
+        this.lastScore = lastScore;
+    }
+
+    public LocalDateTime getLastReviewedAt() {
+        return lastReviewedAt;
+    }
+
+    public void setLastReviewedAt(LocalDateTime lastReviewedAt) {
+        this.lastReviewedAt = lastReviewedAt;
+    }
+
+    public Double getEase() {
+        return ease;
+    }
+
+    public void setEase(Double ease) {
+        this.ease = ease;
+    }
+
+    public Double getStability() {
+        return stability;
+    }
+
+    public void setStability(Double stability) {
+        this.stability = stability;
+    }
+
+    public Double getMemoryDifficulty() {
+        return memoryDifficulty;
+    }
+
+    public void setMemoryDifficulty(Double memoryDifficulty) {
+        this.memoryDifficulty = memoryDifficulty;
+    }
+
+    public Double getIntervalDays() {
+        return intervalDays;
+    }
+
+    public void setIntervalDays(Double intervalDays) {
+        this.intervalDays = intervalDays;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
\ No newline at end of file
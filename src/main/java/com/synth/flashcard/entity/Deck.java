@@ -3,11 +3,14 @@ package com.synth.flashcard.entity;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
+@Cacheable
+@org.hibernate.annotations.Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "decks")
 @Table(name = "decks")
 public class Deck {
     
@@ -28,6 +31,17 @@ public class Deck {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
+    // Bumped whenever the deck or any of its cards changes; drives ETags for deck and card reads
+    @Column(name = "content_version", nullable = false, columnDefinition = "bigint default 0")
+    private Long contentVersion = 0L;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    // Set when the user deletes the deck; DeckPurgeService removes the rows in the background
+    @Column(name = "deleted_at")
+    private LocalDateTime deletedAt;
+    
     @OneToMany(mappedBy = "deck", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnoreProperties("deck")
     private List<Card> cards;
@@ -35,6 +49,12 @@ public class Deck {
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
     }
     
     public Deck() {}
@@ -93,4 +113,28 @@ public class Deck {
     public void setCards(List<Card> cards) {
         this.cards = cards;
     }
+    
+    public Long getContentVersion() {
+        return contentVersion;
+    }
+    
+    public void setContentVersion(Long contentVersion) {
+        this.contentVersion = contentVersion;
+    }
+    
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+    
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+    
+    public LocalDateTime getDeletedAt() {
+        return deletedAt;
+    }
+    
+    public void setDeletedAt(LocalDateTime deletedAt) {
+        this.deletedAt = deletedAt;
+    }
 }
\ No newline at end of file
@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "email_confirmation_tokens")
+@Table(name = "email_confirmation_tokens",
+       indexes = @Index(name = "idx_email_confirmation_token_expires", columnList = "expires_at"))
 public class EmailConfirmationToken {
     
     @Id
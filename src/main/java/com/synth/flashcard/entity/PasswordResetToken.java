@@ -4,7 +4,8 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "password_reset_tokens")
+@Table(name = "password_reset_tokens",
+       indexes = @Index(name = "idx_password_reset_token_expires", columnList = "expires_at"))
 public class PasswordResetToken {
     
     @Id
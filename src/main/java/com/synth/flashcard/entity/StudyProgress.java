@@ -5,6 +5,7 @@ import jakarta.persistence.*;
 
 import java.time.LocalDateTime;
 
+// One active row per (user, deck) is enforced by the partial unique index uk_study_progress_active in schema.sql
 @Entity
 @Table(name = "study_progress")
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
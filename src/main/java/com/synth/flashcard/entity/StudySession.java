@@ -6,7 +6,12 @@ import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "study_sessions")
+@Table(name = "study_sessions",
+       uniqueConstraints = @UniqueConstraint(name = "uk_study_session_client_review", columnNames = {"user_id", "client_review_id"}),
+       indexes = {
+           @Index(name = "idx_study_session_user_studied", columnList = "user_id, studied_at, id"),
+           @Index(name = "idx_study_session_card", columnList = "card_id")
+       })
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class StudySession {
     
@@ -37,13 +42,30 @@ public class StudySession {
     @Column(name = "studied_at")
     private LocalDateTime studiedAt;
     
+    @Enumerated(EnumType.STRING)
+    @Column(name = "grading_status")
+    private GradingStatus gradingStatus = GradingStatus.FINAL;
+    
+    // Client-generated id of a review recorded offline, so a re-sent sync batch is not applied twice
+    @Column(name = "client_review_id", length = 64)
+    private String clientReviewId;
+    
     @PrePersist
     protected void onCreate() {
-        studiedAt = LocalDateTime.now();
+        // Offline reviews keep the time they actually happened
+        if (studiedAt == null) {
+            studiedAt = LocalDateTime.now();
+        }
     }
     
     public StudySession() {}
     
+    public enum GradingStatus {
+        PROVISIONAL, // Locally scored, LLM grading still in flight
+        FINAL,
+        FAILED       // LLM grading failed; the provisional score stands
+    }
+    
     public StudySession(User user, Card card, String response, Double score, Double confidence, String feedback) {
         this.user = user;
         this.card = card;
@@ -117,4 +139,20 @@ public class StudySession {
     public void setFeedback(String feedback) {
         this.feedback = feedback;
     }
+    
+    public GradingStatus getGradingStatus() {
+        return gradingStatus;
+    }
+    
+    public void setGradingStatus(GradingStatus gradingStatus) {
+        this.gradingStatus = gradingStatus;
+    }
+    
+    public String getClientReviewId() {
+        return clientReviewId;
+    }
+    
+    public void setClientReviewId(String clientReviewId) {
+        this.clientReviewId = clientReviewId;
+    }
 }
\ No newline at end of file
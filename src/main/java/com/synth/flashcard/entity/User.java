@@ -44,6 +44,12 @@ public class User implements UserDetails {
     @Column(name = "email_verified")
     private boolean emailVerified = false;
     
+    // Latest deleted_at among this user's purged decks; written only by DeckPurgeService, so a stale
+    // principal saved through JPA cannot move it back
+    @Column(name = "decks_purged_through", insertable = false, updatable = false)
+    @JsonIgnore
+    private LocalDateTime decksPurgedThrough;
+    
     @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnore
     private List<Deck> decks;
@@ -159,4 +165,8 @@ public class User implements UserDetails {
     public void setEmailVerified(boolean emailVerified) {
         this.emailVerified = emailVerified;
     }
+    
+    public LocalDateTime getDecksPurgedThrough() {
+        return decksPurgedThrough;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,40 @@
+package com.synth.flashcard.maintenance;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Removes sent and failed outbox rows once they are past retention. They are kept that long only to
+ * answer support questions about delivery.
+ */
+@Component
+public class EmailOutboxRetentionJob implements MaintenanceJob {
+
+    @Value("${app.email.outbox.retention-days:7}")
+    private int retentionDays;
+
+    @Value("${app.maintenance.email-outbox.interval-ms:3600000}")
+    private long intervalMs;
+
+    @Override
+    public String getName() {
+        return "email-outbox-retention";
+    }
+
+    @Override
+    public Duration getInterval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public long run(MaintenanceRun run) {
+        return run.deleteInChunks(
+            "DELETE FROM email_outbox WHERE id IN ( " +
+            "    SELECT id FROM email_outbox WHERE status <> 'PENDING' AND created_at < ? LIMIT ?)",
+            Timestamp.valueOf(LocalDateTime.now().minusDays(retentionDays)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.synth.flashcard.maintenance;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Removes expired and used email confirmation and password reset tokens. Expired rows are found through
+ * the expires_at indexes and used ones through the partial indexes on used, so neither delete scans.
+ */
+@Component
+public class ExpiredTokenCleanupJob implements MaintenanceJob {
+
+    private static final String[] TOKEN_TABLES = {"email_confirmation_tokens", "password_reset_tokens"};
+
+    @Value("${app.maintenance.tokens.interval-ms:3600000}")
+    private long intervalMs;
+
+    @Override
+    public String getName() {
+        return "expired-tokens";
+    }
+
+    @Override
+    public Duration getInterval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public long run(MaintenanceRun run) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        long deleted = 0;
+        for (String table : TOKEN_TABLES) {
+            deleted += run.deleteInChunks(
+                "DELETE FROM " + table + " WHERE id IN (SELECT id FROM " + table + " WHERE expires_at < ? LIMIT ?)", now);
+            deleted += run.deleteInChunks(
+                "DELETE FROM " + table + " WHERE id IN (SELECT id FROM " + table + " WHERE used = true LIMIT ?)");
+        }
+        return deleted;
+    }
+}
\ No newline at end of file
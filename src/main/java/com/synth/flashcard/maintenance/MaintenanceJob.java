@@ -0,0 +1,21 @@
+package com.synth.flashcard.maintenance;
+
+import java.time.Duration;
+
+/**
+ * A background cleanup that must run on one node at a time. MaintenanceScheduler takes a database lease
+ * named after the job before each run, so at most one node runs it per interval.
+ */
+public interface MaintenanceJob {
+
+    String getName();
+
+    Duration getInterval();
+
+    /**
+     * Does one run's worth of work and returns the number of rows removed. Long jobs should delete
+     * through the run's chunked helpers and return early once the run is out of time; the remainder
+     * is picked up by the next run.
+     */
+    long run(MaintenanceRun run);
+}
\ No newline at end of file
@@ -0,0 +1,75 @@
+package com.synth.flashcard.maintenance;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Arrays;
+
+/**
+ * One run of a maintenance job: a time budget plus chunked deletes that stay within it. Each chunk is
+ * its own autocommitted statement, followed by a short pause, so row locks are held for one chunk at
+ * a time and replication and vacuum can keep up.
+ */
+public class MaintenanceRun {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int chunkSize;
+    private final long pauseMs;
+    private final long deadline;
+    private boolean incomplete;
+
+    MaintenanceRun(JdbcTemplate jdbcTemplate, int chunkSize, long pauseMs, long deadline) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+        this.pauseMs = pauseMs;
+        this.deadline = deadline;
+    }
+
+    public boolean isOutOfTime() {
+        return System.currentTimeMillis() >= deadline || Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Runs sql, whose last placeholder is the chunk LIMIT, until it deletes fewer rows than a chunk or
+     * the run is out of time. Statements look like
+     * {@code DELETE FROM t WHERE id IN (SELECT id FROM t WHERE ... LIMIT ?)}.
+     */
+    public long deleteInChunks(String sql, Object... args) {
+        Object[] chunkArgs = Arrays.copyOf(args, args.length + 1);
+        chunkArgs[args.length] = chunkSize;
+        long total = 0;
+        int deleted;
+        do {
+            if (isOutOfTime()) {
+                incomplete = true;
+                break;
+            }
+            deleted = jdbcTemplate.update(sql, chunkArgs);
+            total += deleted;
+            if (deleted == chunkSize) {
+                pause();
+            }
+        } while (deleted == chunkSize);
+        return total;
+    }
+
+    // Marks that work is left over, so the job is run again soon rather than after its full interval
+    public void markIncomplete() {
+        incomplete = true;
+    }
+
+    public boolean isIncomplete() {
+        return incomplete;
+    }
+
+    private void pause() {
+        if (pauseMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(pauseMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            incomplete = true;
+        }
+    }
+}
\ No newline at end of file
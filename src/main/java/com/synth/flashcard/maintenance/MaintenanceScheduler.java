@@ -0,0 +1,166 @@
+package com.synth.flashcard.maintenance;
+
+import com.synth.flashcard.config.AsyncConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs every {@link MaintenanceJob} on whichever node first takes its lease in maintenance_leases. A
+ * lease lasts one job interval, so each job runs once per interval across the cluster, and a node that
+ * dies mid-run just lets its lease lapse. Jobs run one after another on a dedicated thread, never on the
+ * shared scheduler thread, and each run is bounded to part of its interval so it ends before the lease.
+ */
+@Component
+public class MaintenanceScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(MaintenanceScheduler.class);
+
+    // Succeeds only if nobody holds the lease; the database clock decides, so clock skew between nodes is harmless
+    private static final String ACQUIRE =
+        "INSERT INTO maintenance_leases (job_name, owner, lease_until, last_started_at) " +
+        "VALUES (?, ?, now() + make_interval(secs => ?), now()) " +
+        "ON CONFLICT (job_name) DO UPDATE SET owner = EXCLUDED.owner, lease_until = EXCLUDED.lease_until, " +
+        "    last_started_at = EXCLUDED.last_started_at " +
+        "WHERE maintenance_leases.lease_until <= now()";
+
+    // An incomplete run gives its lease up at once, so the backlog keeps draining on the next tick
+    private static final String FINISH =
+        "UPDATE maintenance_leases SET last_finished_at = now(), last_outcome = ?, last_rows_deleted = ?, " +
+        "    lease_until = CASE WHEN ? THEN now() ELSE lease_until END " +
+        "WHERE job_name = ? AND owner = ?";
+
+    @Value("${app.maintenance.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${app.maintenance.chunk-pause-ms:50}")
+    private long chunkPauseMs;
+
+    @Value("${app.maintenance.max-run-ms:60000}")
+    private long maxRunMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private List<MaintenanceJob> jobs;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier(AsyncConfig.MAINTENANCE_EXECUTOR)
+    private Executor maintenanceExecutor;
+
+    private final String owner = nodeName() + ":" + UUID.randomUUID();
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final Map<String, AtomicLong> lastSuccess = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        for (MaintenanceJob job : jobs) {
+            AtomicLong last = lastSuccess.computeIfAbsent(job.getName(), name -> new AtomicLong());
+            Gauge.builder("maintenance.last.success", last, AtomicLong::get)
+                .description("When this node last completed the job, in epoch seconds")
+                .tag("job", job.getName())
+                .register(meterRegistry);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.maintenance.tick-ms:10000}")
+    public void tick() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            maintenanceExecutor.execute(() -> {
+                try {
+                    runDueJobs();
+                } finally {
+                    running.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            running.set(false);
+        }
+    }
+
+    private void runDueJobs() {
+        for (MaintenanceJob job : jobs) {
+            boolean acquired;
+            try {
+                acquired = jdbcTemplate.update(ACQUIRE, job.getName(), owner, job.getInterval().toMillis() / 1000.0) == 1;
+            } catch (DataAccessException e) {
+                logger.warn("Could not take maintenance lease for {}: {}", job.getName(), e.getMessage());
+                return;
+            }
+            if (acquired) {
+                runJob(job);
+            }
+        }
+    }
+
+    private void runJob(MaintenanceJob job) {
+        long budget = Math.min(maxRunMs, job.getInterval().toMillis() * 3 / 4);
+        MaintenanceRun run = new MaintenanceRun(jdbcTemplate, chunkSize, chunkPauseMs, System.currentTimeMillis() + budget);
+        Timer.Sample sample = Timer.start(meterRegistry);
+        String outcome = "success";
+        long deleted = 0;
+        try {
+            deleted = job.run(run);
+            lastSuccess.get(job.getName()).set(System.currentTimeMillis() / 1000);
+            if (deleted > 0) {
+                logger.info("Maintenance job {} removed {} rows{}", job.getName(), deleted,
+                    run.isIncomplete() ? ", more left for the next run" : "");
+            }
+        } catch (RuntimeException e) {
+            outcome = "failure";
+            logger.warn("Maintenance job {} failed, retrying next interval: {}", job.getName(), e.getMessage());
+        }
+
+        sample.stop(Timer.builder("maintenance.run")
+            .description("Maintenance job run time")
+            .tag("job", job.getName())
+            .tag("outcome", outcome)
+            .register(meterRegistry));
+        Counter.builder("maintenance.rows.deleted")
+            .tag("job", job.getName())
+            .register(meterRegistry)
+            .increment(deleted);
+
+        try {
+            jdbcTemplate.update(FINISH, outcome, deleted, run.isIncomplete(), job.getName(), owner);
+        } catch (DataAccessException e) {
+            logger.warn("Could not record maintenance run of {}: {}", job.getName(), e.getMessage());
+        }
+    }
+
+    private static String nodeName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            return "unknown";
+        }
+    }
+}
\ No newline at end of file
@@ -1,18 +1,43 @@
 package com.synth.flashcard.repository;
 
+import com.synth.flashcard.dto.StudyCardDto;
 import com.synth.flashcard.entity.Card;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface CardRepository extends JpaRepository<Card, Long> {
     List<Card> findByDeckId(Long deckId);
-    
-    default List<Card> findCardsForStudy(Long deckId, Long userId) {
-        return findByDeckId(deckId);
-    }
+
+    // Cards with their deck, restricted to decks the user owns
+    @Query("SELECT c FROM Card c JOIN FETCH c.deck d WHERE c.id IN :cardIds AND d.user.id = :userId AND d.deletedAt IS NULL")
+    List<Card> findOwnedByIdIn(@Param("cardIds") Collection<Long> cardIds, @Param("userId") Long userId);
+
+    // Hot path of every answer; the query cache keeps the id and the card and deck come from the entity cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT c FROM Card c JOIN FETCH c.deck d WHERE c.id = :cardId AND d.user.id = :userId AND d.deletedAt IS NULL")
+    Optional<Card> findOwnedById(@Param("cardId") Long cardId, @Param("userId") Long userId);
+
+    @Query("SELECT c.id FROM Card c WHERE c.deck.id = :deckId")
+    List<Long> findIdsByDeckId(@Param("deckId") Long deckId);
+
+    // Study/deck read model: only the card columns, and only for decks the user owns
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT new com.synth.flashcard.dto.StudyCardDto(c.id, d.id, c.question, c.answer, c.difficulty) " +
+           "FROM Card c JOIN c.deck d WHERE d.id = :deckId AND d.user.id = :userId AND d.deletedAt IS NULL ORDER BY c.id")
+    List<StudyCardDto> findStudyCards(@Param("deckId") Long deckId, @Param("userId") Long userId);
+
+    // Cards for every deck of a user in one query, grouped by deck id by the caller
+    @Query("SELECT new com.synth.flashcard.dto.StudyCardDto(c.id, d.id, c.question, c.answer, c.difficulty) " +
+           "FROM Card c JOIN c.deck d WHERE d.user.id = :userId AND d.deletedAt IS NULL ORDER BY d.id, c.id")
+    List<StudyCardDto> findStudyCardsByUserId(@Param("userId") Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.synth.flashcard.repository;
+
+import com.synth.flashcard.dto.CardScheduleDto;
+import com.synth.flashcard.dto.DueCardDto;
+import com.synth.flashcard.dto.SyncCardDto;
+import com.synth.flashcard.entity.CardReviewState;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface CardReviewStateRepository extends JpaRepository<CardReviewState, Long> {
+
+    @Query("SELECT s FROM CardReviewState s WHERE s.user.id = :userId AND s.card.id = :cardId")
+    Optional<CardReviewState> findByUserIdAndCardId(@Param("userId") Long userId, @Param("cardId") Long cardId);
+
+    @Query("SELECT s FROM CardReviewState s WHERE s.user.id = :userId AND s.card.id IN :cardIds")
+    List<CardReviewState> findByUserIdAndCardIdIn(@Param("userId") Long userId, @Param("cardIds") Collection<Long> cardIds);
+
+    // Keyset pages over (due_at, card_id); the lower bound on dueAt keeps the scan on idx_review_state_user_due
+    @Query("SELECT new com.synth.flashcard.dto.DueCardDto(c.id, d.id, d.name, c.question, c.answer, c.difficulty, s.dueAt, s.reviewCount) " +
+           "FROM CardReviewState s JOIN s.card c JOIN s.deck d " +
+           "WHERE s.user.id = :userId AND s.dueAt <= :now AND s.dueAt >= :afterDue " +
+           "AND (s.dueAt > :afterDue OR s.card.id > :afterCardId) " +
+           "ORDER BY s.dueAt ASC, s.card.id ASC")
+    List<DueCardDto> findDueCards(@Param("userId") Long userId,
+                                  @Param("now") LocalDateTime now,
+                                  @Param("afterDue") LocalDateTime afterDue,
+                                  @Param("afterCardId") Long afterCardId,
+                                  Pageable pageable);
+
+    @Query("SELECT new com.synth.flashcard.dto.DueCardDto(c.id, d.id, d.name, c.question, c.answer, c.difficulty, s.dueAt, s.reviewCount) " +
+           "FROM CardReviewState s JOIN s.card c JOIN s.deck d " +
+           "WHERE s.user.id = :userId AND s.deck.id = :deckId AND s.dueAt <= :now AND s.dueAt >= :afterDue " +
+           "AND (s.dueAt > :afterDue OR s.card.id > :afterCardId) " +
+           "ORDER BY s.dueAt ASC, s.card.id ASC")
+    List<DueCardDto> findDueCardsForDeck(@Param("userId") Long userId,
+                                         @Param("deckId") Long deckId,
+                                         @Param("now") LocalDateTime now,
+                                         @Param("afterDue") LocalDateTime afterDue,
+                                         @Param("afterCardId") Long afterCardId,
+                                         Pageable pageable);
+
+    // Whole deck with the user's schedule in one round trip, for set-based priority scoring; only decks the user owns
+    @Query("SELECT new com.synth.flashcard.dto.CardScheduleDto(c.id, c.question, c.answer, c.difficulty, " +
+           "s.dueAt, s.reviewCount, s.stability, s.intervalDays, s.lastReviewedAt) " +
+           "FROM Card c LEFT JOIN CardReviewState s ON s.card = c AND s.user.id = :userId " +
+           "WHERE c.deck.id = :deckId AND c.deck.user.id = :userId AND c.deck.deletedAt IS NULL")
+    List<CardScheduleDto> findDeckSchedule(@Param("deckId") Long deckId, @Param("userId") Long userId);
+
+    @Query("SELECT new com.synth.flashcard.dto.DueCardDto(c.id, d.id, d.name, c.question, c.answer, c.difficulty, s.dueAt, s.reviewCount) " +
+           "FROM CardReviewState s JOIN s.card c JOIN s.deck d " +
+           "WHERE s.user.id = :userId AND s.card.id IN :cardIds")
+    List<DueCardDto> findDueCardsByCardIds(@Param("userId") Long userId, @Param("cardIds") List<Long> cardIds);
+
+    // Offline bundle: every card of a deck with the user's schedule; only decks the user owns
+    @Query("SELECT new com.synth.flashcard.dto.SyncCardDto(c.id, d.id, c.question, c.answer, c.difficulty, " +
+           "s.dueAt, s.reviewCount, s.lastScore, s.lastReviewedAt, s.intervalDays, s.updatedAt) " +
+           "FROM Card c JOIN c.deck d LEFT JOIN CardReviewState s ON s.card = c AND s.user.id = :userId " +
+           "WHERE d.id = :deckId AND d.user.id = :userId AND d.deletedAt IS NULL ORDER BY c.id")
+    List<SyncCardDto> findDeckBundle(@Param("deckId") Long deckId, @Param("userId") Long userId);
+
+    // Keyset pages over (updated_at, card_id) on idx_review_state_user_updated, for delta sync
+    @Query("SELECT new com.synth.flashcard.dto.SyncCardDto(c.id, d.id, c.question, c.answer, c.difficulty, " +
+           "s.dueAt, s.reviewCount, s.lastScore, s.lastReviewedAt, s.intervalDays, s.updatedAt) " +
+           "FROM CardReviewState s JOIN s.card c JOIN s.deck d " +
+           "WHERE s.user.id = :userId AND s.updatedAt <= :until AND s.updatedAt >= :afterUpdated " +
+           "AND (s.updatedAt > :afterUpdated OR s.card.id > :afterCardId) " +
+           "ORDER BY s.updatedAt ASC, s.card.id ASC")
+    List<SyncCardDto> findChangedSince(@Param("userId") Long userId,
+                                       @Param("afterUpdated") LocalDateTime afterUpdated,
+                                       @Param("afterCardId") Long afterCardId,
+                                       @Param("until") LocalDateTime until,
+                                       Pageable pageable);
+
+    @Query("SELECT new com.synth.flashcard.dto.SyncCardDto(c.id, d.id, c.question, c.answer, c.difficulty, " +
+           "s.dueAt, s.reviewCount, s.lastScore, s.lastReviewedAt, s.intervalDays, s.updatedAt) " +
+           "FROM CardReviewState s JOIN s.card c JOIN s.deck d " +
+           "WHERE s.user.id = :userId AND s.card.id IN :cardIds")
+    List<SyncCardDto> findSyncStatesByCardIds(@Param("userId") Long userId, @Param("cardIds") Collection<Long> cardIds);
+
+    @Query("SELECT s.card.id AS cardId, s.dueAt AS dueAt FROM CardReviewState s WHERE s.user.id = :userId")
+    List<CardDueTime> findDueTimesByUserId(@Param("userId") Long userId);
+
+    // Per-day due counts up to a horizon; aggregated in the database over the (user_id, due_at) index
+    @Query("SELECT CAST(s.dueAt AS LocalDate) AS day, COUNT(s) AS reviews FROM CardReviewState s " +
+           "WHERE s.user.id = :userId AND s.dueAt < :until " +
+           "GROUP BY CAST(s.dueAt AS LocalDate)")
+    List<DailyDueCount> countDueByDay(@Param("userId") Long userId, @Param("until") LocalDateTime until);
+
+    interface DailyDueCount {
+        LocalDate getDay();
+        Long getReviews();
+    }
+
+    interface CardDueTime {
+        Long getCardId();
+        LocalDateTime getDueAt();
+    }
+
+    // Creates the user's missing rows for these cards, due at dueAt. Concurrent first answers to a card
+    // both get here; the loser's insert is a no-op and both go on to update the one row.
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO card_review_states (user_id, card_id, deck_id, due_at, review_count, updated_at) " +
+                   "SELECT :userId, c.id, c.deck_id, :dueAt, 0, NOW() FROM cards c WHERE c.id IN :cardIds " +
+                   "ON CONFLICT (user_id, card_id) DO NOTHING",
+           nativeQuery = true)
+    int insertMissing(@Param("userId") Long userId, @Param("cardIds") Collection<Long> cardIds,
+                      @Param("dueAt") LocalDateTime dueAt);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM CardReviewState s WHERE s.deck.id = :deckId")
+    void deleteByDeckId(@Param("deckId") Long deckId);
+}
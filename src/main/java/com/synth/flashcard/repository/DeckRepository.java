@@ -1,14 +1,50 @@
 package com.synth.flashcard.repository;
 
+import com.synth.flashcard.dto.DeckDetailDto;
 import com.synth.flashcard.entity.Deck;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface DeckRepository extends JpaRepository<Deck, Long> {
-    List<Deck> findByUserIdOrderByCreatedAtDesc(Long userId);
+    List<Deck> findByUserIdAndDeletedAtIsNullOrderByCreatedAtDesc(Long userId);
     List<Deck> findAllByOrderByCreatedAtDesc();
-    int countByUserId(Long userId);
+    int countByUserIdAndDeletedAtIsNull(Long userId);
+
+    @Query("SELECT new com.synth.flashcard.dto.DeckDetailDto(d.id, d.name, d.description, d.createdAt) " +
+           "FROM Deck d WHERE d.user.id = :userId AND d.deletedAt IS NULL ORDER BY d.createdAt DESC")
+    List<DeckDetailDto> findDeckDetailsByUserId(@Param("userId") Long userId);
+
+    @Query("SELECT new com.synth.flashcard.dto.DeckDetailDto(d.id, d.name, d.description, d.createdAt) " +
+           "FROM Deck d WHERE d.id = :deckId AND d.user.id = :userId AND d.deletedAt IS NULL")
+    Optional<DeckDetailDto> findDeckDetail(@Param("deckId") Long deckId, @Param("userId") Long userId);
+
+    // Tombstones for delta sync; a deleted deck is listed until DeckPurgeService removes its row
+    @Query("SELECT d.id FROM Deck d WHERE d.user.id = :userId AND d.deletedAt > :after AND d.deletedAt <= :until ORDER BY d.id")
+    List<Long> findIdsDeletedBetween(@Param("userId") Long userId,
+                                     @Param("after") LocalDateTime after,
+                                     @Param("until") LocalDateTime until);
+
+    @Query("SELECT COUNT(d) > 0 FROM Deck d WHERE d.id = :deckId AND d.user.id = :userId AND d.deletedAt IS NULL")
+    boolean existsOwned(@Param("deckId") Long deckId, @Param("userId") Long userId);
+
+    @Modifying
+    @Transactional
+    @Query("UPDATE Deck d SET d.contentVersion = d.contentVersion + 1, d.updatedAt = LOCAL DATETIME WHERE d.id = :deckId")
+    void bumpContentVersion(@Param("deckId") Long deckId);
+
+    // Soft delete: hides the deck from every read right away and leaves the row purge to DeckPurgeService
+    @Modifying
+    @Transactional
+    @Query("UPDATE Deck d SET d.deletedAt = LOCAL DATETIME, d.contentVersion = d.contentVersion + 1, d.updatedAt = LOCAL DATETIME " +
+           "WHERE d.id = :deckId AND d.user.id = :userId AND d.deletedAt IS NULL")
+    int markDeleted(@Param("deckId") Long deckId, @Param("userId") Long userId);
 }
\ No newline at end of file
@@ -9,7 +9,6 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
@@ -22,10 +21,5 @@ public interface EmailConfirmationTokenRepository extends JpaRepository<EmailCon
     @Query("UPDATE EmailConfirmationToken e SET e.used = true WHERE e.user = :user AND e.used = false")
     void invalidateAllUserTokens(@Param("user") User user);
     
-    @Modifying
-    @Transactional
-    @Query("DELETE FROM EmailConfirmationToken e WHERE e.expiresAt < :now OR e.used = true")
-    void deleteExpiredAndUsedTokens(@Param("now") LocalDateTime now);
-    
     boolean existsByUserAndUsedFalse(User user);
 }
\ No newline at end of file
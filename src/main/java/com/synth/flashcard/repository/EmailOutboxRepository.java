@@ -0,0 +1,9 @@
+package com.synth.flashcard.repository;
+
+import com.synth.flashcard.entity.EmailOutbox;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+}
\ No newline at end of file
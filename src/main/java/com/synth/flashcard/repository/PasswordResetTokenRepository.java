@@ -19,10 +19,6 @@ public interface PasswordResetTokenRepository extends JpaRepository<PasswordRese
     @Query("SELECT t FROM PasswordResetToken t WHERE t.user = :user AND t.used = false AND t.expiresAt > :now ORDER BY t.createdAt DESC")
     Optional<PasswordResetToken> findValidTokenByUser(@Param("user") User user, @Param("now") LocalDateTime now);
     
-    @Modifying
-    @Query("DELETE FROM PasswordResetToken t WHERE t.expiresAt < :now OR t.used = true")
-    void deleteExpiredAndUsedTokens(@Param("now") LocalDateTime now);
-    
     @Modifying
     @Query("UPDATE PasswordResetToken t SET t.used = true WHERE t.user = :user AND t.used = false")
     void invalidateAllUserTokens(@Param("user") User user);
@@ -8,6 +8,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,6 +24,45 @@ public interface StudyProgressRepository extends JpaRepository<StudyProgress, Lo
     @Query("SELECT sp FROM StudyProgress sp WHERE sp.user.id = :userId AND sp.isCompleted = true ORDER BY sp.lastStudiedAt DESC")
     List<StudyProgress> findCompletedProgressByUser(@Param("userId") Long userId);
     
+    // Single-statement save of the active row, backed by the uk_study_progress_active partial index
+    // (schema.sql). Selecting from decks doubles as the ownership check: returns null for a foreign deck.
+    @Transactional
+    @Query(value = "INSERT INTO study_progress (user_id, deck_id, current_card_index, total_cards, cards_completed, is_completed, last_studied_at) " +
+                   "SELECT d.user_id, d.id, :currentCardIndex, :totalCards, :cardsCompleted, false, :studiedAt " +
+                   "FROM decks d WHERE d.id = :deckId AND d.user_id = :userId AND d.deleted_at IS NULL " +
+                   "ON CONFLICT (user_id, deck_id) WHERE is_completed = false DO UPDATE SET " +
+                   "current_card_index = EXCLUDED.current_card_index, total_cards = EXCLUDED.total_cards, " +
+                   "cards_completed = EXCLUDED.cards_completed, last_studied_at = EXCLUDED.last_studied_at " +
+                   "RETURNING id",
+           nativeQuery = true)
+    Long upsertActiveProgress(@Param("userId") Long userId,
+                              @Param("deckId") Long deckId,
+                              @Param("currentCardIndex") Integer currentCardIndex,
+                              @Param("totalCards") Integer totalCards,
+                              @Param("cardsCompleted") Integer cardsCompleted,
+                              @Param("studiedAt") LocalDateTime studiedAt);
+
+    // Completed rows fall outside the partial index, so completion closes the active row if there is one
+    // and otherwise inserts a completed row, still in one statement
+    @Transactional
+    @Query(value = "WITH completed AS ( " +
+                   "    UPDATE study_progress SET current_card_index = :currentCardIndex, total_cards = :totalCards, " +
+                   "    cards_completed = :cardsCompleted, is_completed = true, last_studied_at = :studiedAt " +
+                   "    WHERE user_id = :userId AND deck_id = :deckId AND is_completed = false RETURNING id " +
+                   "), inserted AS ( " +
+                   "    INSERT INTO study_progress (user_id, deck_id, current_card_index, total_cards, cards_completed, is_completed, last_studied_at) " +
+                   "    SELECT d.user_id, d.id, :currentCardIndex, :totalCards, :cardsCompleted, true, :studiedAt " +
+                   "    FROM decks d WHERE d.id = :deckId AND d.user_id = :userId AND d.deleted_at IS NULL AND NOT EXISTS (SELECT 1 FROM completed) " +
+                   "    RETURNING id " +
+                   ") SELECT id FROM completed UNION ALL SELECT id FROM inserted",
+           nativeQuery = true)
+    Long completeProgress(@Param("userId") Long userId,
+                          @Param("deckId") Long deckId,
+                          @Param("currentCardIndex") Integer currentCardIndex,
+                          @Param("totalCards") Integer totalCards,
+                          @Param("cardsCompleted") Integer cardsCompleted,
+                          @Param("studiedAt") LocalDateTime studiedAt);
+
     @Modifying
     @Transactional
     @Query("DELETE FROM StudyProgress sp WHERE sp.deck.id = :deckId")
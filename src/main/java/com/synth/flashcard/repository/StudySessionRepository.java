@@ -9,6 +9,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -28,6 +29,10 @@ public interface StudySessionRepository extends JpaRepository<StudySession, Long
            "ORDER BY ss.studiedAt DESC")
     List<StudySession> findRecentSessionsForDeck(@Param("deckId") Long deckId, @Param("userId") Long userId);
     
+    @Query("SELECT ss.clientReviewId FROM StudySession ss WHERE ss.user.id = :userId AND ss.clientReviewId IN :clientReviewIds")
+    List<String> findExistingClientReviewIds(@Param("userId") Long userId,
+                                             @Param("clientReviewIds") Collection<String> clientReviewIds);
+    
     @Modifying
     @Transactional
     @Query("DELETE FROM StudySession ss WHERE ss.card.id IN :cardIds")
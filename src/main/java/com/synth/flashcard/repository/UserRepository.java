@@ -2,12 +2,18 @@ package com.synth.flashcard.repository;
 
 import com.synth.flashcard.entity.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Query("SELECT u.decksPurgedThrough FROM User u WHERE u.id = :userId")
+    LocalDateTime findDecksPurgedThrough(@Param("userId") Long userId);
 }
\ No newline at end of file
@@ -0,0 +1,135 @@
+package com.synth.flashcard.scheduler;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Free Spaced Repetition Scheduler (FSRS v4.5) with the published default weights.
+ * Tracks memory stability and difficulty per card and schedules for a target retention.
+ */
+@Component
+@ConditionalOnProperty(name = "app.study.scheduler", havingValue = "fsrs")
+public class FsrsScheduler implements SchedulerEngine {
+
+    private static final double[] W = {
+        0.4872, 1.4003, 3.7145, 13.8206, 5.1618, 1.2298, 0.8975, 0.031, 1.6474,
+        0.1367, 1.0461, 2.1072, 0.0793, 0.3246, 1.587, 0.2272, 2.8755
+    };
+
+    private static final double DECAY = -0.5;
+    private static final double FACTOR = 19.0 / 81.0;
+
+    private final double requestRetention;
+    private final double intervalModifier;
+
+    public FsrsScheduler(@Value("${app.study.fsrs.request-retention:0.9}") double requestRetention) {
+        this.requestRetention = requestRetention;
+        this.intervalModifier = (Math.pow(requestRetention, 1 / DECAY) - 1) / FACTOR;
+    }
+
+    @Override
+    public String getName() {
+        return "fsrs";
+    }
+
+    @Override
+    public ReviewState review(ReviewState state, double score, double elapsedDays) {
+        int rating = toRating(score);
+        double stability;
+        double difficulty;
+
+        if (state.isNew()) {
+            stability = W[rating - 1];
+            difficulty = initialDifficulty(rating);
+        } else {
+            double lastStability = state.getStability() > 0 ? state.getStability() : seedStability(state.getIntervalDays());
+            double lastDifficulty = state.getMemoryDifficulty() > 0
+                ? state.getMemoryDifficulty()
+                : seedDifficulty(state.getEase());
+            double retrievability = retrievability(Math.max(0.0, elapsedDays), lastStability);
+            difficulty = nextDifficulty(lastDifficulty, rating);
+            stability = rating == 1
+                ? forgetStability(lastDifficulty, lastStability, retrievability)
+                : recallStability(lastDifficulty, lastStability, retrievability, rating);
+        }
+
+        stability = Math.min(stability, MAX_INTERVAL_DAYS);
+        double interval = Math.max(1.0, Math.min(MAX_INTERVAL_DAYS, Math.round(stability * intervalModifier)));
+        return new ReviewState(state.getEase(), stability, difficulty, interval, state.getReviewCount() + 1);
+    }
+
+    @Override
+    public void computeBatch(ScheduleBatch batch, long nowMillis) {
+        int size = batch.size();
+        int[] reviewCounts = batch.reviewCounts();
+        double[] stability = batch.stability();
+        double[] intervals = batch.intervalDays();
+        long[] lastReviewed = batch.lastReviewedAtMillis();
+        long[] due = batch.dueAtMillis();
+        int[] priorities = batch.priorities();
+
+        for (int i = 0; i < size; i++) {
+            if (reviewCounts[i] == 0) {
+                priorities[i] = NEW_CARD_PRIORITY;
+                continue;
+            }
+            due[i] = lastReviewed[i] + (long) (intervals[i] * DAY_MILLIS);
+
+            // Rank by predicted forgetting: 50 at the target retention, 100 ten points below it
+            double elapsedDays = (double) (nowMillis - lastReviewed[i]) / DAY_MILLIS;
+            double cardStability = stability[i] > 0 ? stability[i] : seedStability(intervals[i]);
+            double retrievability = retrievability(Math.max(0.0, elapsedDays), cardStability);
+            double priority = 50 + (requestRetention - retrievability) * 500;
+            priorities[i] = (int) Math.max(1, Math.min(100, Math.round(priority)));
+        }
+    }
+
+    private int toRating(double score) {
+        if (score < 0.4) return 1;  // Again
+        if (score < 0.6) return 2;  // Hard
+        if (score < 0.85) return 3; // Good
+        return 4;                   // Easy
+    }
+
+    private double retrievability(double elapsedDays, double stability) {
+        return Math.pow(1 + FACTOR * elapsedDays / stability, DECAY);
+    }
+
+    // Reviewed cards without a stability were scheduled by SM-2 or backfilled. Their interval was chosen
+    // to be recalled, so it stands in for stability; with no interval either, one Good answer is assumed.
+    private double seedStability(double intervalDays) {
+        return intervalDays > 0 ? intervalDays / intervalModifier : W[2];
+    }
+
+    // SM-2 ease runs from 1.3 for the hardest cards to about 3; each 0.2 below the default adds a point
+    private double seedDifficulty(double ease) {
+        return clampDifficulty(initialDifficulty(3) + (ReviewState.DEFAULT_EASE - ease) * 5);
+    }
+
+    private double initialDifficulty(int rating) {
+        return clampDifficulty(W[4] - (rating - 3) * W[5]);
+    }
+
+    private double nextDifficulty(double difficulty, int rating) {
+        double next = difficulty - W[6] * (rating - 3);
+        // Mean reversion towards the default difficulty
+        return clampDifficulty(W[7] * initialDifficulty(3) + (1 - W[7]) * next);
+    }
+
+    private double recallStability(double difficulty, double stability, double retrievability, int rating) {
+        double hardPenalty = rating == 2 ? W[15] : 1.0;
+        double easyBonus = rating == 4 ? W[16] : 1.0;
+        return stability * (1 + Math.exp(W[8]) * (11 - difficulty) * Math.pow(stability, -W[9])
+            * (Math.exp((1 - retrievability) * W[10]) - 1) * hardPenalty * easyBonus);
+    }
+
+    private double forgetStability(double difficulty, double stability, double retrievability) {
+        return W[11] * Math.pow(difficulty, -W[12]) * (Math.pow(stability + 1, W[13]) - 1)
+            * Math.exp((1 - retrievability) * W[14]);
+    }
+
+    private double clampDifficulty(double difficulty) {
+        return Math.max(1.0, Math.min(10.0, difficulty));
+    }
+}
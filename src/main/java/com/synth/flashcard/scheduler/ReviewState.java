@@ -0,0 +1,38 @@
+package com.synth.flashcard.scheduler;
+
+/**
+ * Primitive scheduling state of one card for one user. Engines read and produce this
+ * instead of {@code StudySession} history, so rescheduling never touches the session table.
+ */
+public final class ReviewState {
+
+    public static final double DEFAULT_EASE = 2.5;
+
+    private final double ease;
+    private final double stability;
+    private final double memoryDifficulty;
+    private final double intervalDays;
+    private final int reviewCount;
+
+    public ReviewState(double ease, double stability, double memoryDifficulty, double intervalDays, int reviewCount) {
+        this.ease = ease;
+        this.stability = stability;
+        this.memoryDifficulty = memoryDifficulty;
+        this.intervalDays = intervalDays;
+        this.reviewCount = reviewCount;
+    }
+
+    public static ReviewState newCard() {
+        return new ReviewState(DEFAULT_EASE, 0.0, 0.0, 0.0, 0);
+    }
+
+    public double getEase() { return ease; }
+    public double getStability() { return stability; }
+    public double getMemoryDifficulty() { return memoryDifficulty; }
+    public double getIntervalDays() { return intervalDays; }
+    public int getReviewCount() { return reviewCount; }
+
+    public boolean isNew() {
+        return reviewCount == 0;
+    }
+}
@@ -0,0 +1,53 @@
+package com.synth.flashcard.scheduler;
+
+/**
+ * Column-oriented batch of review states. Inputs and outputs are parallel primitive arrays so an
+ * engine can score thousands of cards in one tight loop without allocating per card.
+ */
+public final class ScheduleBatch {
+
+    private final int size;
+
+    // Inputs
+    private final long[] cardIds;
+    private final double[] stability;
+    private final double[] intervalDays;
+    private final int[] reviewCounts;
+    private final long[] lastReviewedAtMillis;
+
+    // In/out: new cards keep their stored due time, reviewed cards are recomputed
+    private final long[] dueAtMillis;
+
+    // Outputs
+    private final int[] priorities;
+
+    public ScheduleBatch(int size) {
+        this.size = size;
+        this.cardIds = new long[size];
+        this.stability = new double[size];
+        this.intervalDays = new double[size];
+        this.reviewCounts = new int[size];
+        this.lastReviewedAtMillis = new long[size];
+        this.dueAtMillis = new long[size];
+        this.priorities = new int[size];
+    }
+
+    public void set(int index, long cardId, double stability, double intervalDays, int reviewCount,
+                    long lastReviewedAtMillis, long dueAtMillis) {
+        this.cardIds[index] = cardId;
+        this.stability[index] = stability;
+        this.intervalDays[index] = intervalDays;
+        this.reviewCounts[index] = reviewCount;
+        this.lastReviewedAtMillis[index] = lastReviewedAtMillis;
+        this.dueAtMillis[index] = dueAtMillis;
+    }
+
+    public int size() { return size; }
+    public long[] cardIds() { return cardIds; }
+    public double[] stability() { return stability; }
+    public double[] intervalDays() { return intervalDays; }
+    public int[] reviewCounts() { return reviewCounts; }
+    public long[] lastReviewedAtMillis() { return lastReviewedAtMillis; }
+    public long[] dueAtMillis() { return dueAtMillis; }
+    public int[] priorities() { return priorities; }
+}
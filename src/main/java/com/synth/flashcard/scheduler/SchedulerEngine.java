@@ -0,0 +1,31 @@
+package com.synth.flashcard.scheduler;
+
+/**
+ * Spaced-repetition scheduling algorithm. Implementations are stateless and work purely on
+ * {@link ReviewState} values, so they can be swapped via {@code app.study.scheduler}.
+ */
+public interface SchedulerEngine {
+
+    long DAY_MILLIS = 24L * 60 * 60 * 1000;
+
+    // Upper bound on any interval; keeps long-lived cards from overflowing date arithmetic
+    double MAX_INTERVAL_DAYS = 36500;
+
+    int NEW_CARD_PRIORITY = 100;
+
+    String getName();
+
+    /**
+     * Applies one graded review.
+     *
+     * @param score       grading score between 0.0 and 1.0
+     * @param elapsedDays days since the previous review, 0 for a new card
+     */
+    ReviewState review(ReviewState state, double score, double elapsedDays);
+
+    /**
+     * Fills {@link ScheduleBatch#dueAtMillis()} and {@link ScheduleBatch#priorities()} for every entry.
+     * Priorities use the 1-100 scale of the study endpoints: 100 for new cards, 50 when exactly due.
+     */
+    void computeBatch(ScheduleBatch batch, long nowMillis);
+}
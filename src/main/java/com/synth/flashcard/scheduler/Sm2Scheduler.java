@@ -0,0 +1,71 @@
+package com.synth.flashcard.scheduler;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * SuperMemo-2 with per-card ease. The 0.0-1.0 grading score maps onto SM-2's 0-5 quality scale.
+ */
+@Component
+@ConditionalOnProperty(name = "app.study.scheduler", havingValue = "sm2", matchIfMissing = true)
+public class Sm2Scheduler implements SchedulerEngine {
+
+    private static final double MIN_EASE = 1.3;
+    private static final double FIRST_INTERVAL = 1.0;
+    private static final double SECOND_INTERVAL = 6.0;
+    private static final int PASSING_QUALITY = 3;
+
+    @Override
+    public String getName() {
+        return "sm2";
+    }
+
+    @Override
+    public ReviewState review(ReviewState state, double score, double elapsedDays) {
+        int quality = (int) Math.round(Math.max(0.0, Math.min(1.0, score)) * 5);
+        int lapse = 5 - quality;
+
+        double ease = state.getEase() + (0.1 - lapse * (0.08 + lapse * 0.02));
+        ease = Math.max(MIN_EASE, ease);
+
+        double interval;
+        if (quality < PASSING_QUALITY || state.getIntervalDays() < FIRST_INTERVAL) {
+            // Failed recall or first review: start the repetition sequence over
+            interval = FIRST_INTERVAL;
+        } else if (state.getIntervalDays() < SECOND_INTERVAL) {
+            interval = SECOND_INTERVAL;
+        } else {
+            interval = state.getIntervalDays() * ease;
+        }
+        interval = Math.min(MAX_INTERVAL_DAYS, interval);
+
+        return new ReviewState(ease, state.getStability(), state.getMemoryDifficulty(), interval, state.getReviewCount() + 1);
+    }
+
+    @Override
+    public void computeBatch(ScheduleBatch batch, long nowMillis) {
+        int size = batch.size();
+        int[] reviewCounts = batch.reviewCounts();
+        double[] intervals = batch.intervalDays();
+        long[] lastReviewed = batch.lastReviewedAtMillis();
+        long[] due = batch.dueAtMillis();
+        int[] priorities = batch.priorities();
+
+        for (int i = 0; i < size; i++) {
+            if (reviewCounts[i] == 0) {
+                priorities[i] = NEW_CARD_PRIORITY;
+                continue;
+            }
+            due[i] = lastReviewed[i] + (long) (intervals[i] * DAY_MILLIS);
+
+            long delta = nowMillis - due[i];
+            if (delta >= 0) {
+                // Overdue cards gain a point per hour overdue
+                priorities[i] = (int) Math.min(100, 50 + delta / 3_600_000L);
+            } else {
+                // Future cards lose a point per day until due
+                priorities[i] = (int) Math.max(1, 50 + delta / DAY_MILLIS);
+            }
+        }
+    }
+}
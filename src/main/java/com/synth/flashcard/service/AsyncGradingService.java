@@ -0,0 +1,88 @@
+package com.synth.flashcard.service;
+
+import com.synth.flashcard.config.AsyncConfig;
+import com.synth.flashcard.dto.GradingEventDto;
+import com.synth.flashcard.entity.Card;
+import com.synth.flashcard.entity.StudySession;
+import com.synth.flashcard.entity.User;
+import com.synth.flashcard.repository.StudySessionRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+/**
+ * Finishes answers accepted with a provisional score: grades them with Gemini off the request thread,
+ * updates the study session row in place, reschedules the card and notifies the client.
+ */
+@Service
+public class AsyncGradingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncGradingService.class);
+
+    @Autowired
+    private GeminiService geminiService;
+
+    @Autowired
+    private SpacedRepetitionService spacedRepetitionService;
+
+    @Autowired
+    private StudySessionRepository studySessionRepository;
+
+    @Autowired
+    private GradingEventService gradingEventService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * @param reschedule whether the final score should drive the schedule; false when the card was already
+     *                   rescheduled with the provisional score, as for offline reviews
+     */
+    @Async(AsyncConfig.GRADING_EXECUTOR)
+    public void grade(User user, Card card, Long sessionId, boolean reschedule) {
+        StudySession session = studySessionRepository.findById(sessionId).orElse(null);
+        if (session == null) {
+            logger.warn("Study session {} disappeared before grading", sessionId);
+            return;
+        }
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        try {
+            GeminiService.GradingResult result = geminiService.gradeAnswer(
+                card.getQuestion(), card.getAnswer(), session.getResponse());
+            session.setScore(result.getScore());
+            session.setConfidence(result.getConfidence());
+            session.setFeedback(result.getFeedback());
+            session.setGradingStatus(StudySession.GradingStatus.FINAL);
+        } catch (Exception e) {
+            // Keep the provisional score so the card is still rescheduled
+            logger.error("Background grading failed for session {}: {}", sessionId, e.getMessage());
+            session.setGradingStatus(StudySession.GradingStatus.FAILED);
+        }
+        studySessionRepository.save(session);
+
+        if (reschedule) {
+            try {
+                spacedRepetitionService.applyGrade(user, card, session.getScore(), session.getStudiedAt());
+            } catch (Exception e) {
+                logger.error("Failed to reschedule card {} after grading session {}: {}",
+                    card.getId(), sessionId, e.getMessage());
+            }
+        }
+
+        // Queue wait is left out; the grading executor's own metrics show the backlog
+        sample.stop(Timer.builder("grading.duration")
+            .description("Time to grade an answer, store it and reschedule the card")
+            .tag("mode", "async")
+            .tag("outcome", session.getGradingStatus() == StudySession.GradingStatus.FINAL ? "final" : "failed")
+            .register(meterRegistry));
+
+        gradingEventService.publish(new GradingEventDto(
+            user.getId(), sessionId, card.getId(), session.getScore(), session.getConfidence(),
+            session.getFeedback(), session.getGradingStatus()));
+    }
+}
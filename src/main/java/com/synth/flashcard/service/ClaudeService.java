@@ -2,6 +2,10 @@ package com.synth.flashcard.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synth.flashcard.util.PayloadLogging;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -18,24 +22,36 @@ import java.util.Map;
 @Service
 public class ClaudeService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ClaudeService.class);
+
+    private static final String PROVIDER = "claude";
+    private static final String GENERATE = "generate";
+    private static final String GRADE = "grade";
+
     @Value("${app.claude.api-key}")
     private String apiKey;
 
     @Value("${app.claude.base-url}")
     private String baseUrl;
 
+    @Autowired
+    private PayloadLogging payloadLogging;
+
+    @Autowired
+    private LlmMetrics llmMetrics;
+
     private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public List<FlashcardData> generateFlashcards(String content) {
         String prompt = createFlashcardPrompt(content);
-        String response = callClaudeAPI(prompt);
+        String response = callClaudeAPI(prompt, GENERATE);
         return parseFlashcardResponse(response);
     }
 
     public GradingResult gradeAnswer(String question, String correctAnswer, String userAnswer) {
         String prompt = createGradingPrompt(question, correctAnswer, userAnswer);
-        String response = callClaudeAPI(prompt);
+        String response = callClaudeAPI(prompt, GRADE);
         return parseGradingResponse(response);
     }
 
@@ -103,14 +119,13 @@ public class ClaudeService {
             """.formatted(question, correctAnswer, userAnswer);
     }
 
-    private String callClaudeAPI(String prompt) {
+    private String callClaudeAPI(String prompt, String operation) {
         try {
-            System.out.println("=== CLAUDE API CALL ===");
-            System.out.println("API Key present: " + (apiKey != null && !apiKey.isEmpty()));
-            System.out.println("Base URL: " + baseUrl);
-            System.out.println("Prompt length: " + prompt.length());
-            System.out.println("Prompt preview: " + prompt.substring(0, Math.min(200, prompt.length())) + "...");
-            
+            boolean sampled = payloadLogging.sample(logger);
+            if (sampled) {
+                logger.debug("Claude prompt: {}", payloadLogging.truncate(prompt));
+            }
+
             HttpHeaders headers = new HttpHeaders();
             headers.set("Content-Type", "application/json");
             headers.set("x-api-key", apiKey);
@@ -127,29 +142,34 @@ public class ClaudeService {
             messages.add(message);
             requestBody.put("messages", messages);
 
-            System.out.println("Request body: " + objectMapper.writeValueAsString(requestBody));
-
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
 
-            ResponseEntity<String> response = restTemplate.exchange(
-                baseUrl + "/messages",
-                HttpMethod.POST,
-                entity,
-                String.class
-            );
-
-            System.out.println("Claude API Response Status: " + response.getStatusCode());
-            System.out.println("Claude API Response Body: " + response.getBody());
+            long started = System.nanoTime();
+            ResponseEntity<String> response = llmMetrics.observeCall(PROVIDER, operation, 1,
+                () -> restTemplate.exchange(
+                    baseUrl + "/messages",
+                    HttpMethod.POST,
+                    entity,
+                    String.class
+                ));
+
+            logger.atDebug()
+                .addKeyValue("status", response.getStatusCode().value())
+                .addKeyValue("promptChars", prompt.length())
+                .addKeyValue("responseChars", response.getBody() != null ? response.getBody().length() : 0)
+                .addKeyValue("elapsedMs", (System.nanoTime() - started) / 1_000_000)
+                .log("Claude call completed");
 
             JsonNode responseNode = objectMapper.readTree(response.getBody());
             String result = responseNode.get("content").get(0).get("text").asText();
-            System.out.println("Extracted text: " + result);
-            System.out.println("=== END CLAUDE API CALL ===");
-            
+            if (sampled) {
+                logger.debug("Claude reply: {}", payloadLogging.truncate(result));
+            }
+
             return result;
         } catch (Exception e) {
-            System.err.println("Claude API Error: " + e.getMessage());
-            e.printStackTrace();
+            llmMetrics.recordFailure(PROVIDER, operation, LlmMetrics.cause(e));
+            logger.error("Claude API call failed", e);
             throw new RuntimeException("Error calling Claude API: " + e.getMessage(), e);
         }
     }
@@ -173,6 +193,7 @@ public class ClaudeService {
             
             return flashcards;
         } catch (Exception e) {
+            llmMetrics.recordFailure(PROVIDER, GENERATE, "unparseable");
             throw new RuntimeException("Error parsing flashcard response: " + e.getMessage(), e);
         }
     }
@@ -193,6 +214,7 @@ public class ClaudeService {
             
             return result;
         } catch (Exception e) {
+            llmMetrics.recordFailure(PROVIDER, GRADE, "unparseable");
             throw new RuntimeException("Error parsing grading response: " + e.getMessage(), e);
         }
     }
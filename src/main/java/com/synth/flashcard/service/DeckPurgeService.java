@@ -0,0 +1,111 @@
+package com.synth.flashcard.service;
+
+import com.synth.flashcard.maintenance.MaintenanceJob;
+import com.synth.flashcard.maintenance.MaintenanceRun;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Removes soft-deleted decks in the background, as a maintenance job on one node at a time. A deck is
+ * kept for delay-ms after deletion so offline clients can learn of it from the sync feed; purging it
+ * records its deleted_at on the owner, which tells clients with an older cursor to resync. Every
+ * statement is set-based on deck_id and bounded by the maintenance chunk size, and runs in its own
+ * short transaction, so purging a large, heavily studied deck never holds locks for long. A purge cut
+ * short by an error, the run's time budget or a restart resumes on the next run.
+ */
+@Service
+public class DeckPurgeService implements MaintenanceJob {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeckPurgeService.class);
+
+    private static final String DELETE_SESSIONS_BATCH =
+        "DELETE FROM study_sessions WHERE id IN ( " +
+        "    SELECT ss.id FROM study_sessions ss JOIN cards c ON c.id = ss.card_id WHERE c.deck_id = ? LIMIT ?)";
+
+    private static final String DELETE_CARDS_BATCH =
+        "DELETE FROM cards WHERE id IN (SELECT id FROM cards WHERE deck_id = ? LIMIT ?)";
+
+    @Value("${app.decks.purge.interval-ms:30000}")
+    private long intervalMs;
+
+    @Value("${app.decks.purge.max-decks-per-run:20}")
+    private int maxDecksPerRun;
+
+    @Value("${app.decks.purge.delay-ms:604800000}")
+    private long delayMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Override
+    public String getName() {
+        return "deck-purge";
+    }
+
+    @Override
+    public Duration getInterval() {
+        return Duration.ofMillis(intervalMs);
+    }
+
+    @Override
+    public long run(MaintenanceRun run) {
+        Timestamp deletedBefore = Timestamp.valueOf(LocalDateTime.now().minus(Duration.ofMillis(delayMs)));
+        List<Long> deckIds = jdbcTemplate.queryForList(
+            "SELECT id FROM decks WHERE deleted_at IS NOT NULL AND deleted_at < ? ORDER BY deleted_at LIMIT ?",
+            Long.class, deletedBefore, maxDecksPerRun);
+        if (deckIds.size() == maxDecksPerRun) {
+            run.markIncomplete();
+        }
+
+        long deleted = 0;
+        for (Long deckId : deckIds) {
+            if (run.isOutOfTime()) {
+                run.markIncomplete();
+                break;
+            }
+            try {
+                deleted += purge(deckId, run);
+            } catch (DataAccessException e) {
+                // e.g. an answer for the deck landed between the session and card batches; retried next run
+                logger.warn("Purge of deck {} incomplete, retrying next run: {}", deckId, e.getMessage());
+            }
+        }
+        return deleted;
+    }
+
+    private long purge(Long deckId, MaintenanceRun run) {
+        long start = System.currentTimeMillis();
+        long sessions = run.deleteInChunks(DELETE_SESSIONS_BATCH, deckId);
+        // Normally already removed by FlashcardService.deleteDeck; catches writes that raced it
+        long states = jdbcTemplate.update("DELETE FROM card_review_states WHERE deck_id = ?", deckId);
+        long progress = jdbcTemplate.update("DELETE FROM study_progress WHERE deck_id = ?", deckId);
+        long cards = run.deleteInChunks(DELETE_CARDS_BATCH, deckId);
+        if (run.isOutOfTime()) {
+            // Cards may be left over; the deck row stays so the next run finds it again
+            return sessions + states + progress + cards;
+        }
+        // The tombstone goes with the row, so clients synced from before the deletion must resync
+        jdbcTemplate.update(
+            "UPDATE users u SET decks_purged_through = d.deleted_at FROM decks d " +
+            "WHERE d.id = ? AND d.deleted_at IS NOT NULL AND u.id = d.user_id " +
+            "AND (u.decks_purged_through IS NULL OR u.decks_purged_through < d.deleted_at)", deckId);
+        int decks = jdbcTemplate.update("DELETE FROM decks WHERE id = ? AND deleted_at IS NOT NULL", deckId);
+        entityCacheService.evictDeckContents(deckId);
+        logger.info("Purged deck {}: {} cards, {} study sessions in {}ms",
+            deckId, cards, sessions, System.currentTimeMillis() - start);
+        return sessions + states + progress + cards + decks;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+package com.synth.flashcard.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * HTTP validators for deck reads. Each is one indexed row lookup or aggregate over the decks table via
+ * JDBC, so conditional requests are answered with 304 without loading entities.
+ */
+@Service
+public class DeckVersionService {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    public static class ResourceVersion {
+        private final String etag;
+        private final long lastModified;
+
+        public ResourceVersion(String etag, long lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+
+        public String getEtag() {
+            return etag;
+        }
+
+        // Epoch millis, or -1 when the resource has no reliable modification time
+        public long getLastModified() {
+            return lastModified;
+        }
+    }
+
+    /**
+     * Version of one deck owned by the user; empty if it does not exist or belongs to someone else.
+     * The representation name keeps ETags of different payloads built from the same deck apart.
+     */
+    public Optional<ResourceVersion> deckVersion(Long deckId, Long userId, String representation) {
+        List<ResourceVersion> versions = jdbcTemplate.query(
+            "SELECT content_version, COALESCE(updated_at, created_at) AS updated_at FROM decks WHERE id = ? AND user_id = ? AND deleted_at IS NULL",
+            (rs, rowNum) -> {
+                Timestamp updatedAt = rs.getTimestamp("updated_at");
+                return new ResourceVersion(
+                    String.format("W/\"%s-%d-%d\"", representation, deckId, rs.getLong("content_version")),
+                    updatedAt != null ? updatedAt.getTime() : 0);
+            },
+            deckId, userId);
+        return versions.stream().findFirst();
+    }
+
+    /**
+     * Version of the user's deck list. The deck count catches deletions, which leave no newer
+     * timestamp behind, so the list is validated by ETag only.
+     */
+    public ResourceVersion deckListVersion(Long userId) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) AS deck_count, COALESCE(SUM(content_version), 0) AS versions, MAX(updated_at) AS updated_at " +
+            "FROM decks WHERE user_id = ? AND deleted_at IS NULL",
+            (rs, rowNum) -> {
+                Timestamp updatedAt = rs.getTimestamp("updated_at");
+                return new ResourceVersion(
+                    String.format("W/\"decks-%d-%d-%d\"", rs.getLong("deck_count"), rs.getLong("versions"),
+                        updatedAt != null ? updatedAt.getTime() : 0),
+                    -1);
+            },
+            userId);
+    }
+}
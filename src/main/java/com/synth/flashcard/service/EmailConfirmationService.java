@@ -7,13 +7,10 @@ import com.synth.flashcard.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Async;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
-import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.Optional;
 
@@ -30,10 +27,13 @@ public class EmailConfirmationService {
     
     @Autowired
     private EmailService emailService;
+
+    @Autowired
+    private PrincipalCacheService principalCacheService;
     
     private final SecureRandom secureRandom = new SecureRandom();
     
-    @Async
+    // The token and its email are written together; EmailOutboxDispatcher sends the email
     @Transactional
     public void sendEmailConfirmation(User user) {
         if (user.isEmailVerified()) {
@@ -51,10 +51,10 @@ public class EmailConfirmationService {
         EmailConfirmationToken confirmationToken = new EmailConfirmationToken(token, user);
         tokenRepository.save(confirmationToken);
         
-        // Send email
+        // Queue email
         emailService.sendEmailConfirmation(user.getEmail(), token);
         
-        logger.info("Email confirmation sent to: {}", user.getEmail());
+        logger.info("Email confirmation queued for: {}", user.getEmail());
     }
     
     @Transactional
@@ -81,6 +81,7 @@ public class EmailConfirmationService {
         User user = confirmationToken.getUser();
         user.setEmailVerified(true);
         userRepository.save(user);
+        principalCacheService.invalidate(user.getEmail());
         
         logger.info("Email confirmed successfully for user: {}", user.getEmail());
         return true;
@@ -117,15 +118,4 @@ public class EmailConfirmationService {
         secureRandom.nextBytes(tokenBytes);
         return Base64.getUrlEncoder().withoutPadding().encodeToString(tokenBytes);
     }
-    
-    @Scheduled(fixedRate = 3600000) // Run every hour
-    @Transactional
-    public void cleanupExpiredTokens() {
-        try {
-            tokenRepository.deleteExpiredAndUsedTokens(LocalDateTime.now());
-            logger.debug("Cleaned up expired email confirmation tokens");
-        } catch (Exception e) {
-            logger.error("Error cleaning up expired tokens: {}", e.getMessage());
-        }
-    }
 }
\ No newline at end of file
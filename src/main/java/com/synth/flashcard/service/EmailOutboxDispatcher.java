@@ -0,0 +1,412 @@
+package com.synth.flashcard.service;
+
+import com.synth.flashcard.config.AsyncConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the email outbox into Resend. Workers claim due rows with FOR UPDATE SKIP LOCKED, so nodes
+ * never pick the same row, and send them in batch calls of up to batch-size. At most concurrency
+ * workers run per node, and every call first takes a token from a Redis rate limit shared by all nodes
+ * and sized to the Resend account's request limit. Failed sends are retried with exponential backoff;
+ * messages the provider rejects, or that run out of attempts, are marked FAILED.
+ * <p>
+ * A claim stamps its rows with a batch key that is sent as the Idempotency-Key. Until the call is
+ * settled the rows are only ever claimed and sent again together under that key, so a batch Resend
+ * accepted before a timeout, or before the sending node died, is dropped by Resend instead of sent twice.
+ */
+@Service
+public class EmailOutboxDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(EmailOutboxDispatcher.class);
+
+    private static final String RESEND_RATE_LIMIT_KEY = "rate_limit:resend:requests";
+
+    // Claiming pushes next_attempt_at out by the lease, so rows held by a node that died become due again
+    private static final String CLAIM =
+        "UPDATE email_outbox SET attempts = attempts + 1, next_attempt_at = ?, batch_key = ? " +
+        "WHERE id IN ( " +
+        "    SELECT id FROM email_outbox WHERE status = 'PENDING' AND batch_key IS NULL AND next_attempt_at <= ? " +
+        "    ORDER BY next_attempt_at LIMIT ? FOR UPDATE SKIP LOCKED) " +
+        "RETURNING id, recipient, subject, html, attempts, created_at, batch_key";
+
+    // Re-claims a whole unsettled batch. Nodes compete for its lowest id row only, so one node gets all of it.
+    private static final String CLAIM_RETRY =
+        "UPDATE email_outbox SET attempts = attempts + 1, next_attempt_at = ? " +
+        "WHERE status = 'PENDING' AND batch_key IN ( " +
+        "    SELECT o.batch_key FROM email_outbox o " +
+        "    WHERE o.status = 'PENDING' AND o.batch_key IS NOT NULL AND o.next_attempt_at <= ? " +
+        "      AND NOT EXISTS (SELECT 1 FROM email_outbox p " +
+        "                      WHERE p.status = 'PENDING' AND p.batch_key = o.batch_key AND p.id < o.id) " +
+        "    ORDER BY o.next_attempt_at LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+        "RETURNING id, recipient, subject, html, attempts, created_at, batch_key";
+
+    @Value("${app.resend.api-key:}")
+    private String resendApiKey;
+
+    @Value("${app.resend.from-email:noreply@yourdomain.com}")
+    private String fromEmail;
+
+    @Value("${app.email.outbox.concurrency:2}")
+    private int concurrency;
+
+    @Value("${app.email.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.email.outbox.max-batches-per-run:10}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.email.outbox.requests-per-second:2}")
+    private int requestsPerSecond;
+
+    @Value("${app.email.outbox.max-attempts:8}")
+    private int maxAttempts;
+
+    @Value("${app.email.outbox.backoff-base-ms:30000}")
+    private long backoffBaseMs;
+
+    @Value("${app.email.outbox.backoff-max-ms:3600000}")
+    private long backoffMaxMs;
+
+    @Value("${app.email.outbox.timeout-ms:10000}")
+    private long timeoutMs;
+
+    @Value("${app.email.outbox.lease-ms:300000}")
+    private long leaseMs;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier(AsyncConfig.EMAIL_EXECUTOR)
+    private Executor emailExecutor;
+
+    private WebClient webClient;
+
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestPendingSeconds = new AtomicLong();
+
+    // Set when Resend answers 429; no worker sends before it
+    private volatile long pausedUntil;
+
+    private Timer deliveryDelay;
+    private Counter failed;
+
+    @PostConstruct
+    public void init() {
+        webClient = WebClient.builder()
+                .baseUrl("https://api.resend.com")
+                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .build();
+        Gauge.builder("email.outbox.pending", pending, AtomicLong::get)
+            .description("Emails waiting to be sent")
+            .register(meterRegistry);
+        Gauge.builder("email.outbox.oldest.age", oldestPendingSeconds, AtomicLong::get)
+            .description("Age of the oldest email waiting to be sent")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        deliveryDelay = Timer.builder("email.outbox.delivery.delay")
+            .description("Time from queueing an email to the provider accepting it")
+            .register(meterRegistry);
+        failed = Counter.builder("email.outbox.failed")
+            .description("Emails given up on")
+            .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.email.outbox.poll-interval-ms:1000}")
+    public void dispatch() {
+        refreshDepth();
+        if (resendApiKey == null || resendApiKey.isEmpty() || pending.get() == 0) {
+            return;
+        }
+        // Sends block on HTTP, so they run on the email executor rather than the shared scheduler thread
+        while (activeWorkers.get() < concurrency) {
+            activeWorkers.incrementAndGet();
+            try {
+                emailExecutor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                activeWorkers.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            for (int i = 0; i < maxBatchesPerRun && System.currentTimeMillis() >= pausedUntil; i++) {
+                List<OutboundEmail> batch = claim();
+                if (batch.isEmpty()) {
+                    return;
+                }
+                send(batch);
+                if (batch.size() < batchSize) {
+                    return;
+                }
+            }
+        } catch (DataAccessException e) {
+            logger.warn("Email outbox dispatch failed: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            activeWorkers.decrementAndGet();
+        }
+    }
+
+    // Unsettled batches go first, so a retry is never starved by new mail
+    private List<OutboundEmail> claim() {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp leaseUntil = Timestamp.valueOf(now.plus(Duration.ofMillis(leaseMs)));
+        List<OutboundEmail> batch = jdbcTemplate.query(CLAIM_RETRY, this::mapEmail, leaseUntil, Timestamp.valueOf(now));
+        if (batch.isEmpty()) {
+            String batchKey = "email-outbox-batch-" + UUID.randomUUID();
+            batch = jdbcTemplate.query(CLAIM, this::mapEmail, leaseUntil, batchKey, Timestamp.valueOf(now), batchSize);
+        }
+        // Same order on every attempt, so a retry sends the payload the key was first used with
+        batch.sort(Comparator.comparingLong(email -> email.id));
+        return batch;
+    }
+
+    private OutboundEmail mapEmail(ResultSet rs, int rowNum) throws SQLException {
+        return new OutboundEmail(
+            rs.getLong("id"),
+            rs.getString("recipient"),
+            rs.getString("subject"),
+            rs.getString("html"),
+            rs.getInt("attempts"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getString("batch_key"));
+    }
+
+    private void send(List<OutboundEmail> batch) throws InterruptedException {
+        awaitPermit();
+        String mode = batch.size() == 1 ? "single" : "batch";
+        long start = System.nanoTime();
+        try {
+            String idempotencyKey = batch.get(0).batchKey;
+            if (batch.size() == 1) {
+                post("/emails", toPayload(batch.get(0)), idempotencyKey);
+            } else {
+                post("/emails/batch", batch.stream().map(this::toPayload).toList(), idempotencyKey);
+            }
+            recordSend(mode, "sent", start);
+            markSent(batch);
+        } catch (WebClientResponseException e) {
+            int status = e.getStatusCode().value();
+            if (status == 429) {
+                recordSend(mode, "throttled", start);
+                pause(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER));
+                release(batch);
+            } else if (status == 400 || status == 422) {
+                recordSend(mode, "rejected", start);
+                if (batch.size() > 1) {
+                    // Resend rejects a whole batch for one invalid message; sending one by one isolates it.
+                    // Nothing was sent, so each row becomes a batch of its own under its own key.
+                    List<OutboundEmail> singles = split(batch);
+                    for (OutboundEmail email : singles) {
+                        send(List.of(email));
+                    }
+                } else {
+                    markFailed(batch, "Rejected by provider: " + e.getResponseBodyAsString());
+                }
+            } else {
+                recordSend(mode, "error", start);
+                retryLater(batch, "HTTP " + status + ": " + e.getResponseBodyAsString());
+            }
+        } catch (RuntimeException e) {
+            // Timeouts and connection errors; the batch is retried as-is under its key in case Resend did send
+            recordSend(mode, "error", start);
+            retryLater(batch, e.getMessage());
+        }
+    }
+
+    private void post(String uri, Object body, String idempotencyKey) {
+        webClient.post()
+                .uri(uri)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + resendApiKey)
+                .header("Idempotency-Key", idempotencyKey)
+                .bodyValue(body)
+                .retrieve()
+                .toBodilessEntity()
+                .block(Duration.ofMillis(timeoutMs));
+    }
+
+    private void awaitPermit() throws InterruptedException {
+        while (true) {
+            RateLimiterService.Decision decision = rateLimiterService.tryAcquire(RESEND_RATE_LIMIT_KEY, requestsPerSecond, 1);
+            if (decision.isAllowed()) {
+                return;
+            }
+            Thread.sleep(Math.max(10, decision.getRetryAfterMs()));
+        }
+    }
+
+    private Map<String, Object> toPayload(OutboundEmail email) {
+        return Map.of(
+            "from", fromEmail,
+            "to", List.of(email.recipient),
+            "subject", email.subject,
+            "html", email.html
+        );
+    }
+
+    private List<OutboundEmail> split(List<OutboundEmail> batch) {
+        List<OutboundEmail> singles = batch.stream()
+            .map(email -> email.withBatchKey("email-outbox-" + email.id))
+            .toList();
+        jdbcTemplate.batchUpdate(
+            "UPDATE email_outbox SET batch_key = ? WHERE id = ?",
+            singles.stream().map(email -> new Object[]{email.batchKey, email.id}).toList());
+        return singles;
+    }
+
+    private void markSent(List<OutboundEmail> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(
+            "UPDATE email_outbox SET status = 'SENT', sent_at = ?, last_error = NULL WHERE id = ?",
+            batch.stream().map(email -> new Object[]{Timestamp.valueOf(now), email.id}).toList());
+        batch.forEach(email -> deliveryDelay.record(Duration.between(email.createdAt, now)));
+    }
+
+    private void markFailed(List<OutboundEmail> batch, String error) {
+        jdbcTemplate.batchUpdate(
+            "UPDATE email_outbox SET status = 'FAILED', last_error = ? WHERE id = ?",
+            batch.stream().map(email -> new Object[]{truncate(error), email.id}).toList());
+        failed.increment(batch.size());
+        logger.error("Giving up on {} email(s): {}", batch.size(), error);
+    }
+
+    // The batch keeps its key and becomes due as a whole; dropping part of it would change the payload
+    private void retryLater(List<OutboundEmail> batch, String error) {
+        int attempts = batch.stream().mapToInt(email -> email.attempts).max().orElse(0);
+        if (attempts >= maxAttempts) {
+            markFailed(batch, error);
+            return;
+        }
+        Timestamp retryAt = Timestamp.valueOf(LocalDateTime.now().plus(Duration.ofMillis(backoff(attempts))));
+        jdbcTemplate.batchUpdate(
+            "UPDATE email_outbox SET next_attempt_at = ?, last_error = ? WHERE id = ?",
+            batch.stream().map(email -> new Object[]{retryAt, truncate(error), email.id}).toList());
+        logger.warn("Email send failed, retrying {} email(s) later: {}", batch.size(), error);
+    }
+
+    // Handed back without spending an attempt, due once the provider's pause is over
+    private void release(List<OutboundEmail> batch) {
+        Timestamp resumeAt = new Timestamp(pausedUntil);
+        jdbcTemplate.batchUpdate(
+            "UPDATE email_outbox SET attempts = attempts - 1, next_attempt_at = ? WHERE id = ?",
+            batch.stream().map(email -> new Object[]{resumeAt, email.id}).toList());
+    }
+
+    private void pause(String retryAfter) {
+        long seconds = 1;
+        try {
+            if (retryAfter != null) {
+                seconds = Math.max(1, Long.parseLong(retryAfter.trim()));
+            }
+        } catch (NumberFormatException e) {
+            // HTTP-date form; the default pause is enough
+        }
+        pausedUntil = System.currentTimeMillis() + seconds * 1000;
+        logger.warn("Resend rate limit hit, pausing email sends for {}s", seconds);
+    }
+
+    // Exponential with jitter, so a provider outage does not end in a synchronized burst of retries
+    private long backoff(int attempts) {
+        long delay = Math.min(backoffMaxMs, backoffBaseMs << Math.min(attempts - 1, 20));
+        return delay / 2 + ThreadLocalRandom.current().nextLong(delay / 2 + 1);
+    }
+
+    private void recordSend(String mode, String outcome, long startNanos) {
+        Timer.builder("email.send")
+            .description("Resend API call latency")
+            .tag("mode", mode)
+            .tag("outcome", outcome)
+            .register(meterRegistry)
+            .record(Duration.ofNanos(System.nanoTime() - startNanos));
+    }
+
+    private void refreshDepth() {
+        try {
+            jdbcTemplate.query(
+                "SELECT COUNT(*) AS pending, MIN(created_at) AS oldest FROM email_outbox WHERE status = 'PENDING'",
+                rs -> {
+                    pending.set(rs.getLong("pending"));
+                    Timestamp oldest = rs.getTimestamp("oldest");
+                    oldestPendingSeconds.set(oldest == null ? 0
+                        : Math.max(0, Duration.between(oldest.toLocalDateTime(), LocalDateTime.now()).toSeconds()));
+                });
+        } catch (DataAccessException e) {
+            logger.warn("Could not read email outbox depth: {}", e.getMessage());
+        }
+    }
+
+    private static String truncate(String error) {
+        if (error == null) {
+            return null;
+        }
+        return error.length() <= 1000 ? error : error.substring(0, 1000);
+    }
+
+    private static class OutboundEmail {
+        final long id;
+        final String recipient;
+        final String subject;
+        final String html;
+        final int attempts;
+        final LocalDateTime createdAt;
+        final String batchKey;
+
+        OutboundEmail(long id, String recipient, String subject, String html, int attempts, LocalDateTime createdAt,
+                      String batchKey) {
+            this.id = id;
+            this.recipient = recipient;
+            this.subject = subject;
+            this.html = html;
+            this.attempts = attempts;
+            this.createdAt = createdAt;
+            this.batchKey = batchKey;
+        }
+
+        OutboundEmail withBatchKey(String batchKey) {
+            return new OutboundEmail(id, recipient, subject, html, attempts, createdAt, batchKey);
+        }
+    }
+}
\ No newline at end of file
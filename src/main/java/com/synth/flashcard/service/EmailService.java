@@ -1,17 +1,16 @@
 package com.synth.flashcard.service;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synth.flashcard.entity.EmailOutbox;
+import com.synth.flashcard.repository.EmailOutboxRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Mono;
-
-import java.util.Map;
 
+/**
+ * Renders transactional emails and queues them in the email_outbox table; EmailOutboxDispatcher sends them.
+ */
 @Service
 public class EmailService {
     
@@ -20,22 +19,11 @@ public class EmailService {
     @Value("${app.resend.api-key:}")
     private String resendApiKey;
     
-    @Value("${app.resend.from-email:noreply@yourdomain.com}")
-    private String fromEmail;
-    
     @Value("${app.frontend.url:http://localhost:3000}")
     private String frontendUrl;
     
-    private final WebClient webClient;
-    private final ObjectMapper objectMapper;
-    
-    public EmailService(ObjectMapper objectMapper) {
-        this.objectMapper = objectMapper;
-        this.webClient = WebClient.builder()
-                .baseUrl("https://api.resend.com")
-                .defaultHeader(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
-                .build();
-    }
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
     
     public void sendPasswordResetEmail(String email, String token) {
         if (resendApiKey == null || resendApiKey.isEmpty()) {
@@ -44,15 +32,7 @@ public class EmailService {
         }
         
         String resetUrl = frontendUrl + "/reset-password?token=" + token;
-        
-        Map<String, Object> emailData = Map.of(
-            "from", fromEmail,
-            "to", new String[]{email},
-            "subject", "Reset Your Synth Password",
-            "html", buildPasswordResetEmail(resetUrl)
-        );
-        
-        sendEmail(emailData, "password reset");
+        enqueue("password_reset", email, "Reset Your Synth Password", buildPasswordResetEmail(resetUrl));
     }
     
     public void sendEmailConfirmation(String email, String token) {
@@ -62,33 +42,13 @@ public class EmailService {
         }
         
         String confirmUrl = frontendUrl + "/confirm-email?token=" + token;
-        
-        Map<String, Object> emailData = Map.of(
-            "from", fromEmail,
-            "to", new String[]{email},
-            "subject", "Confirm Your Synth Account",
-            "html", buildEmailConfirmationEmail(confirmUrl)
-        );
-        
-        sendEmail(emailData, "email confirmation");
+        enqueue("email_confirmation", email, "Confirm Your Synth Account", buildEmailConfirmationEmail(confirmUrl));
     }
     
-    private void sendEmail(Map<String, Object> emailData, String type) {
-        try {
-            webClient.post()
-                    .uri("/emails")
-                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + resendApiKey)
-                    .bodyValue(emailData)
-                    .retrieve()
-                    .bodyToMono(String.class)
-                    .doOnSuccess(response -> logger.info("Successfully sent {} email", type))
-                    .doOnError(error -> logger.error("Failed to send {} email: {}", type, error.getMessage()))
-                    .onErrorResume(error -> Mono.empty())
-                    .subscribe();
-                    
-        } catch (Exception e) {
-            logger.error("Error sending {} email: {}", type, e.getMessage());
-        }
+    // Joins the caller's transaction, so the email exists exactly when the token it carries does
+    private void enqueue(String type, String email, String subject, String html) {
+        emailOutboxRepository.save(new EmailOutbox(type, email, subject, html));
+        logger.debug("Queued {} email", type);
     }
     
     private String buildPasswordResetEmail(String resetUrl) {
@@ -0,0 +1,146 @@
+package com.synth.flashcard.service;
+
+import com.synth.flashcard.entity.Card;
+import com.synth.flashcard.entity.Deck;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the Hibernate second-level cache for cards and decks coherent. Hibernate maintains it for
+ * writes made through JPA on this node; this service covers the rest: JDBC writes (write-behind
+ * flushes, the deck purger) and every other node, which hears about changes on a Redis channel.
+ * If Redis is down, other nodes fall back to the cache regions' expiry.
+ * <p>
+ * Card changes evict only the named cards and their decks. Cached query results on the writing node
+ * are invalidated by Hibernate's update timestamps; elsewhere a study card list may show an old
+ * difficulty until the query region expires. Removing a deck changes which rows the cached queries
+ * return, so that clears the query region on every node.
+ */
+@Service
+public class EntityCacheService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(EntityCacheService.class);
+
+    private static final String CHANNEL = "entity_cache_invalidation";
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    // One card changed, e.g. its difficulty; its deck's version moved with it
+    public void evictCard(Long cardId, Long deckId) {
+        apply("card:" + cardId + ":" + deckId);
+    }
+
+    // Cards changed in bulk, with the decks whose versions moved with them
+    public void evictCards(Collection<Long> cardIds, Collection<Long> deckIds) {
+        if (!cardIds.isEmpty()) {
+            apply("cards:" + join(cardIds) + ":" + join(deckIds));
+        }
+    }
+
+    // Deck soft-deleted
+    public void evictDeck(Long deckId) {
+        apply("deck:" + deckId);
+    }
+
+    // Deck removed together with its cards
+    public void evictDeckContents(Long deckId) {
+        apply("deck-contents:" + deckId);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        String invalidation = new String(message.getBody(), StandardCharsets.UTF_8);
+        try {
+            evictLocally(invalidation);
+        } catch (RuntimeException e) {
+            logger.warn("Ignoring cache invalidation '{}': {}", invalidation, e.getMessage());
+        }
+    }
+
+    // Runs after commit when called inside a transaction, so no node can re-cache the old rows in between
+    private void apply(String invalidation) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndBroadcast(invalidation);
+                }
+            });
+        } else {
+            evictAndBroadcast(invalidation);
+        }
+    }
+
+    private void evictAndBroadcast(String invalidation) {
+        evictLocally(invalidation);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, invalidation);
+        } catch (Exception e) {
+            logger.warn("Cache invalidation broadcast failed, other nodes rely on expiry: {}", e.getMessage());
+        }
+    }
+
+    private void evictLocally(String invalidation) {
+        String[] parts = invalidation.split(":");
+        Cache cache = entityManagerFactory.getCache();
+        switch (parts[0]) {
+            case "card" -> {
+                cache.evict(Card.class, Long.valueOf(parts[1]));
+                cache.evict(Deck.class, Long.valueOf(parts[2]));
+            }
+            case "cards" -> {
+                Arrays.stream(parts[1].split(",")).map(Long::valueOf).forEach(cardId -> cache.evict(Card.class, cardId));
+                Arrays.stream(parts[2].split(",")).map(Long::valueOf).forEach(deckId -> cache.evict(Deck.class, deckId));
+            }
+            case "deck" -> {
+                cache.evict(Deck.class, Long.valueOf(parts[1]));
+                evictQueryResults();
+            }
+            case "deck-contents" -> {
+                cache.evict(Deck.class, Long.valueOf(parts[1]));
+                cache.evict(Card.class);
+                evictQueryResults();
+            }
+            default -> throw new IllegalArgumentException("unknown invalidation type");
+        }
+    }
+
+    // Cached card lookups and study card lists of the removed deck would otherwise still be served
+    private void evictQueryResults() {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictDefaultQueryRegion();
+    }
+
+    private static String join(Collection<Long> ids) {
+        return ids.stream().map(String::valueOf).collect(Collectors.joining(","));
+    }
+}
\ No newline at end of file
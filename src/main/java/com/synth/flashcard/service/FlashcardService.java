@@ -1,14 +1,19 @@
 package com.synth.flashcard.service;
 
+import com.synth.flashcard.dto.DeckDetailDto;
 import com.synth.flashcard.dto.DeckStatsDto;
+import com.synth.flashcard.dto.StudyCardDto;
 import com.synth.flashcard.entity.Card;
 import com.synth.flashcard.entity.Deck;
 import com.synth.flashcard.entity.StudySession;
 import com.synth.flashcard.entity.User;
 import com.synth.flashcard.repository.CardRepository;
+import com.synth.flashcard.repository.CardReviewStateRepository;
 import com.synth.flashcard.repository.DeckRepository;
 import com.synth.flashcard.repository.StudyProgressRepository;
 import com.synth.flashcard.repository.StudySessionRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +23,8 @@ import java.io.IOException;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class FlashcardService {
@@ -46,6 +53,30 @@ public class FlashcardService {
     @Autowired
     private SubscriptionService subscriptionService;
 
+    @Autowired
+    private SpacedRepetitionService spacedRepetitionService;
+
+    @Autowired
+    private StudyWriteBuffer studyWriteBuffer;
+
+    @Autowired
+    private CardReviewStateRepository cardReviewStateRepository;
+
+    @Autowired
+    private StudyProgressWriter studyProgressWriter;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private StudyQueueService studyQueueService;
+
+    @Autowired
+    private ReviewForecastService reviewForecastService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     public Deck createDeckFromFile(User user, String deckName, String description, MultipartFile file) throws IOException {
         // Validate file
         if (!fileProcessingService.isValidFileType(file)) {
@@ -72,16 +103,19 @@ public class FlashcardService {
         
         // Validate subscription limits before creating deck
         subscriptionService.validateDeckCreation(user, flashcardData.size());
+        recordCardsGenerated("file", flashcardData.size());
 
         // Create deck
         Deck deck = new Deck(user, deckName, description);
         deck = deckRepository.save(deck);
 
         // Create cards
+        List<Card> cards = new ArrayList<>();
         for (GeminiService.FlashcardData data : flashcardData) {
             Card card = new Card(deck, data.getQuestion(), data.getAnswer(), Card.Difficulty.MEDIUM);
-            cardRepository.save(card);
+            cards.add(cardRepository.save(card));
         }
+        spacedRepetitionService.initializeReviewStates(user, deck, cards);
 
         return deckRepository.findById(deck.getId()).orElse(deck);
     }
@@ -100,26 +134,55 @@ public class FlashcardService {
         
         // Validate subscription limits before creating deck
         subscriptionService.validateDeckCreation(user, flashcardData.size());
+        recordCardsGenerated("text", flashcardData.size());
 
         // Create deck
         Deck deck = new Deck(user, deckName, description);
         deck = deckRepository.save(deck);
 
         // Create cards
+        List<Card> cards = new ArrayList<>();
         for (GeminiService.FlashcardData data : flashcardData) {
             Card card = new Card(deck, data.getQuestion(), data.getAnswer(), Card.Difficulty.MEDIUM);
-            cardRepository.save(card);
+            cards.add(cardRepository.save(card));
         }
+        spacedRepetitionService.initializeReviewStates(user, deck, cards);
 
         return deckRepository.findById(deck.getId()).orElse(deck);
     }
 
-    public List<Deck> getUserDecks(Long userId) {
-        return deckRepository.findByUserIdOrderByCreatedAtDesc(userId);
+    private void recordCardsGenerated(String source, int cards) {
+        DistributionSummary.builder("deck.cards.generated")
+            .description("Flashcards generated per deck")
+            .tag("source", source)
+            .register(meterRegistry)
+            .record(cards);
+    }
+
+    /**
+     * All of a user's decks with their cards as read models: two projection queries, however many decks.
+     */
+    public List<DeckDetailDto> getUserDecks(Long userId) {
+        List<DeckDetailDto> decks = deckRepository.findDeckDetailsByUserId(userId);
+        Map<Long, List<StudyCardDto>> cardsByDeck = cardRepository.findStudyCardsByUserId(userId).stream()
+            .collect(Collectors.groupingBy(StudyCardDto::getDeckId));
+        for (DeckDetailDto deck : decks) {
+            deck.setCards(cardsByDeck.getOrDefault(deck.getId(), new ArrayList<>()));
+        }
+        return decks;
+    }
+
+    public DeckDetailDto getDeckDetail(Long deckId, Long userId) {
+        // Ownership is part of the query, so another user's deck looks the same as a missing one
+        DeckDetailDto deck = deckRepository.findDeckDetail(deckId, userId)
+            .orElseThrow(() -> new RuntimeException("Deck not found"));
+        deck.setCards(cardRepository.findStudyCards(deckId, userId));
+        return deck;
     }
 
     public Deck getDeck(Long deckId, Long userId) {
         Deck deck = deckRepository.findById(deckId)
+            .filter(found -> found.getDeletedAt() == null)
             .orElseThrow(() -> new RuntimeException("Deck not found"));
         
         if (!deck.getUser().getId().equals(userId)) {
@@ -129,27 +192,35 @@ public class FlashcardService {
         return deck;
     }
 
+    /**
+     * Soft-deletes the deck and returns without touching its cards or study history, which
+     * DeckPurgeService removes in bounded batches. Progress and review schedule are one row per deck
+     * or card and are read by most study endpoints, so they are dropped here.
+     */
     @Transactional
     public void deleteDeck(Long deckId, Long userId) {
-        Deck deck = getDeck(deckId, userId); // This checks ownership
-        
-        // Delete related records first to avoid foreign key constraint violations
-        
-        // 1. Delete study sessions for all cards in this deck
-        List<Long> cardIds = deck.getCards().stream().map(Card::getId).toList();
-        if (!cardIds.isEmpty()) {
-            studySessionRepository.deleteByCardIdIn(cardIds);
+        // Write out buffered answers and progress first so the purger sees them instead of them failing later
+        if (studyWriteBuffer.isEnabled()) {
+            studyWriteBuffer.flush();
         }
-        
-        // 2. Delete study progress records for this deck
+        studyProgressWriter.discard(userId, deckId);
+
+        if (deckRepository.markDeleted(deckId, userId) == 0) {
+            throw new RuntimeException("Deck not found");
+        }
+        entityCacheService.evictDeck(deckId);
         studyProgressRepository.deleteByDeckId(deckId);
-        
-        // 3. Now safe to delete the deck (cards will be deleted via cascade)
-        deckRepository.delete(deck);
+        cardReviewStateRepository.deleteByDeckId(deckId);
+
+        // Drop the cards from the user's study queue and cached forecast
+        if (studyQueueService.isEnabled()) {
+            studyQueueService.remove(userId, cardRepository.findIdsByDeckId(deckId));
+        }
+        reviewForecastService.evict(userId);
     }
 
     public List<DeckStatsDto> getUserDeckStats(Long userId) {
-        List<Deck> decks = deckRepository.findByUserIdOrderByCreatedAtDesc(userId);
+        List<Deck> decks = deckRepository.findByUserIdAndDeletedAtIsNullOrderByCreatedAtDesc(userId);
         List<DeckStatsDto> deckStats = new ArrayList<>();
 
         for (Deck deck : decks) {
@@ -2,6 +2,10 @@ package com.synth.flashcard.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synth.flashcard.util.PayloadLogging;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
@@ -19,24 +23,36 @@ import java.util.Map;
 @Service
 public class GeminiService {
 
+    private static final Logger logger = LoggerFactory.getLogger(GeminiService.class);
+
+    private static final String PROVIDER = "gemini";
+    private static final String GENERATE = "generate";
+    private static final String GRADE = "grade";
+
     @Value("${app.gemini.api-key}")
     private String apiKey;
 
     @Value("${app.gemini.base-url:https://generativelanguage.googleapis.com/v1beta}")
     private String baseUrl;
 
+    @Autowired
+    private PayloadLogging payloadLogging;
+
+    @Autowired
+    private LlmMetrics llmMetrics;
+
     private final RestTemplate restTemplate = new RestTemplate();
     private final ObjectMapper objectMapper = new ObjectMapper();
 
     public List<FlashcardData> generateFlashcards(String content) {
         String prompt = createFlashcardPrompt(content);
-        String response = callGeminiAPI(prompt);
+        String response = callGeminiAPI(prompt, GENERATE);
         return parseFlashcardResponse(response);
     }
 
     public GradingResult gradeAnswer(String question, String correctAnswer, String userAnswer) {
         String prompt = createGradingPrompt(question, correctAnswer, userAnswer);
-        String response = callGeminiAPI(prompt);
+        String response = callGeminiAPI(prompt, GRADE);
         return parseGradingResponse(response);
     }
 
@@ -104,18 +120,16 @@ public class GeminiService {
             """.formatted(question, correctAnswer, userAnswer);
     }
 
-    private String callGeminiAPI(String prompt) {
+    private String callGeminiAPI(String prompt, String operation) {
         int maxRetries = 3;
         int baseDelay = 2000; // 2 seconds
+        boolean sampled = payloadLogging.sample(logger);
+        if (sampled) {
+            logger.debug("Gemini prompt: {}", payloadLogging.truncate(prompt));
+        }
         
         for (int attempt = 1; attempt <= maxRetries; attempt++) {
             try {
-                System.out.println("=== GEMINI API CALL (Attempt " + attempt + "/" + maxRetries + ") ===");
-                System.out.println("API Key present: " + (apiKey != null && !apiKey.isEmpty()));
-                System.out.println("Base URL: " + baseUrl);
-                System.out.println("Prompt length: " + prompt.length());
-                System.out.println("Prompt preview: " + prompt.substring(0, Math.min(200, prompt.length())) + "...");
-                
                 HttpHeaders headers = new HttpHeaders();
                 headers.set("Content-Type", "application/json");
                 
@@ -142,41 +156,48 @@ public class GeminiService {
                 generationConfig.put("maxOutputTokens", 4000);
                 requestBody.put("generationConfig", generationConfig);
 
-                System.out.println("Request body: " + objectMapper.writeValueAsString(requestBody));
-
                 HttpEntity<Map<String, Object>> entity = new HttpEntity<>(requestBody, headers);
                 
                 String url = baseUrl + "/models/gemini-1.5-flash:generateContent?key=" + apiKey;
 
-                ResponseEntity<String> response = restTemplate.exchange(
-                    url,
-                    HttpMethod.POST,
-                    entity,
-                    String.class
-                );
+                long started = System.nanoTime();
+                // One span per attempt, so retries and backoff gaps are visible in the trace
+                ResponseEntity<String> response = llmMetrics.observeCall(PROVIDER, operation, attempt,
+                    () -> restTemplate.exchange(
+                        url,
+                        HttpMethod.POST,
+                        entity,
+                        String.class
+                    ));
 
-                System.out.println("Gemini API Response Status: " + response.getStatusCode());
-                System.out.println("Gemini API Response Body: " + response.getBody());
+                logger.atDebug()
+                    .addKeyValue("attempt", attempt)
+                    .addKeyValue("status", response.getStatusCode().value())
+                    .addKeyValue("promptChars", prompt.length())
+                    .addKeyValue("responseChars", response.getBody() != null ? response.getBody().length() : 0)
+                    .addKeyValue("elapsedMs", (System.nanoTime() - started) / 1_000_000)
+                    .log("Gemini call completed");
 
                 JsonNode responseNode = objectMapper.readTree(response.getBody());
                 String result = responseNode.get("candidates").get(0)
                     .get("content").get("parts").get(0).get("text").asText();
-                System.out.println("Extracted text: " + result);
-                System.out.println("=== END GEMINI API CALL ===");
-                
+                if (sampled) {
+                    logger.debug("Gemini reply: {}", payloadLogging.truncate(result));
+                }
+
                 return result;
                 
             } catch (HttpServerErrorException.ServiceUnavailable e) {
-                System.err.println("Gemini API Service Unavailable (503) - Attempt " + attempt + "/" + maxRetries);
-                
                 if (attempt == maxRetries) {
-                    System.err.println("All retry attempts exhausted. Gemini service is overloaded.");
+                    llmMetrics.recordFailure(PROVIDER, operation, "unavailable");
+                    logger.warn("Gemini unavailable (503), giving up after {} attempts", maxRetries);
                     throw new RuntimeException("Gemini API is currently overloaded. Please try again in a few minutes.", e);
                 }
                 
                 // Exponential backoff: wait longer between retries
                 int delay = baseDelay * (int) Math.pow(2, attempt - 1);
-                System.out.println("Waiting " + delay + "ms before retry...");
+                logger.info("Gemini unavailable (503) on attempt {}/{}, retrying in {}ms", attempt, maxRetries, delay);
+                llmMetrics.recordRetry(PROVIDER, operation, "unavailable");
                 
                 try {
                     Thread.sleep(delay);
@@ -186,8 +207,8 @@ public class GeminiService {
                 }
                 
             } catch (Exception e) {
-                System.err.println("Gemini API Error: " + e.getMessage());
-                e.printStackTrace();
+                llmMetrics.recordFailure(PROVIDER, operation, LlmMetrics.cause(e));
+                logger.error("Gemini API call failed", e);
                 throw new RuntimeException("Error calling Gemini API: " + e.getMessage(), e);
             }
         }
@@ -197,48 +218,33 @@ public class GeminiService {
 
     private List<FlashcardData> parseFlashcardResponse(String response) {
         try {
-            System.out.println("=== PARSING FLASHCARD RESPONSE ===");
-            System.out.println("Raw response: " + response);
-            
             // Extract JSON from response (may contain additional text)
             int startIndex = response.indexOf('[');
             int endIndex = response.lastIndexOf(']') + 1;
             
-            System.out.println("JSON start index: " + startIndex);
-            System.out.println("JSON end index: " + endIndex);
-            
             if (startIndex == -1 || endIndex == 0) {
-                System.err.println("No JSON array found in response");
                 throw new RuntimeException("No JSON array found in response");
             }
             
             String jsonString = response.substring(startIndex, endIndex);
-            System.out.println("Extracted JSON: " + jsonString);
             
             JsonNode jsonArray = objectMapper.readTree(jsonString);
             List<FlashcardData> flashcards = new ArrayList<>();
             
-            System.out.println("JSON array size: " + jsonArray.size());
-            
             for (JsonNode node : jsonArray) {
                 FlashcardData flashcard = new FlashcardData();
-                String question = node.get("question").asText();
-                String answer = node.get("answer").asText();
-                
-                System.out.println("Parsed flashcard - Q: " + question + ", A: " + answer);
-                
-                flashcard.setQuestion(question);
-                flashcard.setAnswer(answer);
+                flashcard.setQuestion(node.get("question").asText());
+                flashcard.setAnswer(node.get("answer").asText());
                 flashcards.add(flashcard);
             }
             
-            System.out.println("Total flashcards parsed: " + flashcards.size());
-            System.out.println("=== END PARSING ===");
-            
+            logger.debug("Parsed {} flashcards from Gemini reply", flashcards.size());
+
             return flashcards;
         } catch (Exception e) {
-            System.err.println("Error parsing flashcard response: " + e.getMessage());
-            e.printStackTrace();
+            llmMetrics.recordFailure(PROVIDER, GENERATE, "unparseable");
+            logger.warn("Could not parse flashcards from Gemini reply ({} chars): {}",
+                response != null ? response.length() : 0, e.getMessage());
             throw new RuntimeException("Error parsing flashcard response: " + e.getMessage(), e);
         }
     }
@@ -264,6 +270,7 @@ public class GeminiService {
             
             return result;
         } catch (Exception e) {
+            llmMetrics.recordFailure(PROVIDER, GRADE, "unparseable");
             throw new RuntimeException("Error parsing grading response: " + e.getMessage(), e);
         }
     }
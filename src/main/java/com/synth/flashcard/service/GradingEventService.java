@@ -0,0 +1,135 @@
+package com.synth.flashcard.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synth.flashcard.dto.GradingEventDto;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Pushes final grades to the student's open SSE streams. Events go through a Redis channel so the
+ * node that finished grading does not have to be the node holding the client's connection; if Redis
+ * is unavailable they are delivered to local connections only.
+ */
+@Service
+public class GradingEventService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(GradingEventService.class);
+
+    private static final String CHANNEL = "grading_events";
+
+    @Value("${app.study.grading.sse-timeout-ms:1800000}")
+    private long sseTimeoutMs;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final Map<Long, List<SseEmitter>> emitters = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void subscribe() {
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    public SseEmitter connect(Long userId) {
+        SseEmitter emitter = new SseEmitter(sseTimeoutMs);
+        emitters.compute(userId, (id, userEmitters) -> {
+            List<SseEmitter> updated = userEmitters != null ? userEmitters : new CopyOnWriteArrayList<>();
+            updated.add(emitter);
+            return updated;
+        });
+
+        Runnable cleanup = () -> removeEmitter(userId, emitter);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(error -> cleanup.run());
+
+        try {
+            // Flushes the response headers so the client sees the stream open immediately
+            emitter.send(SseEmitter.event().comment("connected"));
+        } catch (IOException e) {
+            removeEmitter(userId, emitter);
+        }
+        return emitter;
+    }
+
+    public void publish(GradingEventDto event) {
+        try {
+            redisTemplate.convertAndSend(CHANNEL, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            logger.warn("Grading event broadcast failed, delivering locally: {}", e.getMessage());
+            deliver(event);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            deliver(objectMapper.readValue(message.getBody(), GradingEventDto.class));
+        } catch (IOException e) {
+            logger.warn("Discarding malformed grading event: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Keeps idle streams alive through proxies and prunes connections the client has dropped.
+     */
+    @Scheduled(fixedDelay = 25000)
+    public void heartbeat() {
+        emitters.forEach((userId, userEmitters) -> {
+            for (SseEmitter emitter : userEmitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("keep-alive"));
+                } catch (Exception e) {
+                    removeEmitter(userId, emitter);
+                }
+            }
+        });
+    }
+
+    private void deliver(GradingEventDto event) {
+        List<SseEmitter> userEmitters = emitters.get(event.getUserId());
+        if (userEmitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : userEmitters) {
+            try {
+                emitter.send(SseEmitter.event()
+                    .name("grading")
+                    .id(String.valueOf(event.getSessionId()))
+                    .data(event));
+            } catch (Exception e) {
+                removeEmitter(event.getUserId(), emitter);
+            }
+        }
+    }
+
+    private void removeEmitter(Long userId, SseEmitter emitter) {
+        emitters.computeIfPresent(userId, (id, userEmitters) -> {
+            userEmitters.remove(emitter);
+            return userEmitters.isEmpty() ? null : userEmitters;
+        });
+    }
+}
\ No newline at end of file
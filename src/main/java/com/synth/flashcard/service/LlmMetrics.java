@@ -0,0 +1,87 @@
+package com.synth.flashcard.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.util.function.Supplier;
+
+/**
+ * Meters shared by the LLM clients, tagged by provider (gemini, claude) and operation (generate, grade).
+ * Each HTTP attempt is one observation, which yields both a sample of the llm.request timer and a
+ * span, so retried calls show up as several samples and sibling spans.
+ */
+@Component
+public class LlmMetrics {
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    /**
+     * Runs one API attempt inside an llm.request observation. The outcome tag is success,
+     * unavailable (503) or error; the exception is recorded on the span.
+     */
+    public <T> T observeCall(String provider, String operation, int attempt, Supplier<T> call) {
+        Observation observation = Observation.createNotStarted("llm.request", observationRegistry)
+            .contextualName(provider + " " + operation)
+            .lowCardinalityKeyValue("provider", provider)
+            .lowCardinalityKeyValue("operation", operation)
+            .highCardinalityKeyValue("attempt", String.valueOf(attempt))
+            .start();
+        String outcome = "error";
+        try {
+            T result = observation.scoped(call);
+            outcome = "success";
+            return result;
+        } catch (RuntimeException e) {
+            if (e instanceof HttpServerErrorException.ServiceUnavailable) {
+                outcome = "unavailable";
+            }
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.lowCardinalityKeyValue("outcome", outcome);
+            observation.stop();
+        }
+    }
+
+    public void recordRetry(String provider, String operation, String cause) {
+        Counter.builder("llm.retries")
+            .description("LLM API attempts that were retried")
+            .tag("provider", provider)
+            .tag("operation", operation)
+            .tag("cause", cause)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    public void recordFailure(String provider, String operation, String cause) {
+        Counter.builder("llm.failures")
+            .description("LLM calls that failed after any retries")
+            .tag("provider", provider)
+            .tag("operation", operation)
+            .tag("cause", cause)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    // Bounded set of tag values: HTTP status, I/O, or the exception type
+    public static String cause(Throwable e) {
+        if (e instanceof HttpStatusCodeException statusException) {
+            return "http_" + statusException.getStatusCode().value();
+        }
+        if (e instanceof ResourceAccessException) {
+            return "io";
+        }
+        return e.getClass().getSimpleName();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,249 @@
+package com.synth.flashcard.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synth.flashcard.annotation.RateLimit;
+import com.synth.flashcard.dto.DeckDetailDto;
+import com.synth.flashcard.dto.OfflineReviewDto;
+import com.synth.flashcard.dto.StudyBundleDto;
+import com.synth.flashcard.dto.SyncCardDto;
+import com.synth.flashcard.dto.SyncChangesResponse;
+import com.synth.flashcard.dto.SyncReviewsResponse;
+import com.synth.flashcard.entity.Card;
+import com.synth.flashcard.entity.StudySession;
+import com.synth.flashcard.entity.User;
+import com.synth.flashcard.repository.CardRepository;
+import com.synth.flashcard.repository.CardReviewStateRepository;
+import com.synth.flashcard.repository.DeckRepository;
+import com.synth.flashcard.repository.StudySessionRepository;
+import com.synth.flashcard.repository.UserRepository;
+import com.synth.flashcard.util.KeysetCursor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Offline study: a whole deck with its schedule in one download, a batch upload of reviews taken
+ * offline, and a change feed of schedule updates and deck deletions since a cursor.
+ */
+@Service
+public class OfflineSyncService {
+
+    private static final int MAX_CHANGES_PAGE_SIZE = 500;
+
+    // The change feed stops this far behind now, so a transaction that commits late with an earlier
+    // updated_at is still picked up by the next sync rather than skipped by the cursor
+    private static final Duration COMMIT_LAG = Duration.ofSeconds(5);
+
+    private static final LocalDateTime SYNC_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private CardReviewStateRepository cardReviewStateRepository;
+
+    @Autowired
+    private StudySessionRepository studySessionRepository;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private SpacedRepetitionService spacedRepetitionService;
+
+    @Autowired
+    private ProvisionalGradingService provisionalGradingService;
+
+    @Autowired
+    private AsyncGradingService asyncGradingService;
+
+    @Autowired
+    private RateLimiterService rateLimiterService;
+
+    @Autowired
+    private SubscriptionService subscriptionService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public StudyBundleDto exportBundle(Long deckId, Long userId) {
+        DeckDetailDto deck = deckRepository.findDeckDetail(deckId, userId)
+            .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Deck not found"));
+        LocalDateTime now = LocalDateTime.now();
+        List<SyncCardDto> cards = cardReviewStateRepository.findDeckBundle(deckId, userId);
+        String cursor = new KeysetCursor(now.minus(COMMIT_LAG), 0L).encode();
+        return new StudyBundleDto(deck.getId(), deck.getName(), now, cursor, cards);
+    }
+
+    /**
+     * Validator for a bundle: covers the deck name, cards and schedule but not the generation time or
+     * cursor, so an unchanged deck keeps its ETag between downloads.
+     */
+    public String bundleEtag(StudyBundleDto bundle) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(objectMapper.writeValueAsBytes(bundle.getDeckName()));
+            digest.update(objectMapper.writeValueAsBytes(bundle.getCards()));
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Could not compute bundle ETag", e);
+        }
+    }
+
+    /**
+     * Applies reviews recorded offline in the order they happened. Reviews are deduplicated by their
+     * client id, so re-sending a batch after a lost response is safe. Reviews without a self-assessed
+     * score are scheduled with the local provisional grade and graded by Gemini in the background, as far
+     * as the user's grading quota allows; the rest keep the provisional grade and are listed as ungraded.
+     */
+    public SyncReviewsResponse syncReviews(User user, List<OfflineReviewDto> reviews) {
+        if (reviews.isEmpty()) {
+            return new SyncReviewsResponse(0, List.of(), List.of(), List.of(), List.of());
+        }
+
+        Set<String> clientReviewIds = reviews.stream().map(OfflineReviewDto::getClientReviewId).collect(Collectors.toSet());
+        Set<Long> cardIds = reviews.stream().map(OfflineReviewDto::getCardId).collect(Collectors.toSet());
+        Map<Long, Card> cardsById = cardRepository.findOwnedByIdIn(cardIds, user.getId()).stream()
+            .collect(Collectors.toMap(Card::getId, Function.identity()));
+
+        List<String> duplicates = new ArrayList<>();
+        List<String> rejected = new ArrayList<>();
+        List<StudySession> sessions = buildSessions(user, reviews, cardsById,
+            studySessionRepository.findExistingClientReviewIds(user.getId(), clientReviewIds), duplicates, rejected);
+        // Sessions are inserted in one transaction before any schedule changes, so a concurrent
+        // duplicate sync fails on the client id constraint instead of reviewing cards twice
+        try {
+            studySessionRepository.saveAll(sessions);
+        } catch (DataIntegrityViolationException e) {
+            // That sync, sent under another Idempotency-Key, committed first: what it stored is reported
+            // as duplicates and the rest is inserted again
+            duplicates.clear();
+            rejected.clear();
+            sessions = buildSessions(user, reviews, cardsById,
+                studySessionRepository.findExistingClientReviewIds(user.getId(), clientReviewIds), duplicates, rejected);
+            studySessionRepository.saveAll(sessions);
+        }
+
+        spacedRepetitionService.applyGrades(user, sessions);
+        Set<Long> touchedCardIds = new LinkedHashSet<>();
+        sessions.forEach(session -> touchedCardIds.add(session.getCard().getId()));
+
+        // Each LLM grade spends one token of the user's grading quota, as an answer sent online would
+        List<String> ungraded = new ArrayList<>();
+        String gradingKey = RateLimiterService.userKey(RateLimit.Quota.GRADING.name().toLowerCase(), user.getId());
+        int gradingLimit = subscriptionService.getRateLimit(user.getSubscriptionTier(), RateLimit.Quota.GRADING);
+        for (StudySession session : sessions) {
+            if (session.getGradingStatus() != StudySession.GradingStatus.PROVISIONAL) {
+                continue;
+            }
+            if (rateLimiterService.tryAcquire(gradingKey, gradingLimit, RateLimit.Quota.GRADING.getWindow()).isAllowed()) {
+                asyncGradingService.grade(user, session.getCard(), session.getId(), false);
+            } else {
+                // Already scheduled with the provisional score, which stands
+                ungraded.add(session.getClientReviewId());
+            }
+        }
+
+        List<SyncCardDto> states = touchedCardIds.isEmpty()
+            ? List.of()
+            : cardReviewStateRepository.findSyncStatesByCardIds(user.getId(), touchedCardIds);
+        return new SyncReviewsResponse(sessions.size(), duplicates, rejected, ungraded, states);
+    }
+
+    // Sessions for the reviews not stored yet, oldest first; the others go to duplicates or rejected
+    private List<StudySession> buildSessions(User user, List<OfflineReviewDto> reviews, Map<Long, Card> cardsById,
+                                             Collection<String> existingClientReviewIds,
+                                             List<String> duplicates, List<String> rejected) {
+        LocalDateTime now = LocalDateTime.now();
+        List<StudySession> sessions = new ArrayList<>();
+        Set<String> seen = new HashSet<>(existingClientReviewIds);
+        for (OfflineReviewDto review : reviews.stream().sorted(Comparator.comparing(OfflineReviewDto::getReviewedAt)).toList()) {
+            if (!seen.add(review.getClientReviewId())) {
+                duplicates.add(review.getClientReviewId());
+                continue;
+            }
+            Card card = cardsById.get(review.getCardId());
+            if (card == null) {
+                rejected.add(review.getClientReviewId());
+                continue;
+            }
+
+            StudySession session;
+            if (review.getScore() != null) {
+                session = new StudySession(user, card, review.getAnswer(), review.getScore(), 1.0, "Self-assessed offline");
+            } else {
+                GeminiService.GradingResult provisional = provisionalGradingService.grade(card.getAnswer(), review.getAnswer());
+                session = new StudySession(user, card, review.getAnswer(), provisional.getScore(),
+                    provisional.getConfidence(), provisional.getFeedback());
+                session.setGradingStatus(StudySession.GradingStatus.PROVISIONAL);
+            }
+            // Device clocks drift; never record a review in the future
+            session.setStudiedAt(review.getReviewedAt().isAfter(now) ? now : review.getReviewedAt());
+            session.setClientReviewId(review.getClientReviewId());
+            sessions.add(session);
+        }
+        return sessions;
+    }
+
+    /**
+     * Schedule changes after the cursor, plus the ids of decks deleted in the same span, which the client
+     * drops with their cards. Deleted decks are listed until they are purged; a client whose cursor
+     * predates a purged deletion is told to resync fully, as nothing is left to describe what it lost.
+     */
+    public SyncChangesResponse getChanges(Long userId, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_CHANGES_PAGE_SIZE));
+        boolean fromStart = cursor == null || cursor.isBlank();
+        KeysetCursor after = fromStart ? new KeysetCursor(SYNC_START, 0L) : KeysetCursor.decode(cursor);
+
+        if (!fromStart) {
+            LocalDateTime purgedThrough = userRepository.findDecksPurgedThrough(userId);
+            if (purgedThrough != null && after.getTimestamp().isBefore(purgedThrough)) {
+                return new SyncChangesResponse(List.of(), cursor, false, List.of(), true);
+            }
+        }
+
+        // One extra row tells whether another page follows
+        LocalDateTime until = LocalDateTime.now().minus(COMMIT_LAG);
+        List<SyncCardDto> changes = new ArrayList<>(cardReviewStateRepository.findChangedSince(
+            userId, after.getTimestamp(), after.getId(), until, PageRequest.of(0, pageSize + 1)));
+        boolean hasMore = changes.size() > pageSize;
+        if (hasMore) {
+            changes = changes.subList(0, pageSize);
+        }
+
+        KeysetCursor next = after;
+        if (!changes.isEmpty()) {
+            SyncCardDto last = changes.get(changes.size() - 1);
+            next = new KeysetCursor(last.getUpdatedAt(), last.getCardId());
+        }
+        // Deletions up to where this page ends, so consecutive pages cover the span without gaps;
+        // one may be listed again on the next sync, which clients treat as a no-op
+        List<Long> deletedDeckIds = fromStart
+            ? List.of()
+            : deckRepository.findIdsDeletedBetween(userId, after.getTimestamp(), hasMore ? next.getTimestamp() : until);
+        return new SyncChangesResponse(changes, next.encode(), hasMore, deletedDeckIds, false);
+    }
+}
\ No newline at end of file
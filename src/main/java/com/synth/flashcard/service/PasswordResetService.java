@@ -12,7 +12,6 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.security.SecureRandom;
-import java.time.LocalDateTime;
 import java.util.Base64;
 import java.util.Optional;
 
@@ -34,6 +33,9 @@ public class PasswordResetService {
     
     @Autowired
     private EmailService emailService;
+
+    @Autowired
+    private PrincipalCacheService principalCacheService;
     
     private final SecureRandom secureRandom = new SecureRandom();
     
@@ -61,13 +63,9 @@ public class PasswordResetService {
         
         logger.info("Password reset token created for user: {}", email);
         
-        // Send password reset email
-        try {
-            emailService.sendPasswordResetEmail(email, token);
-            logger.info("Password reset email sent successfully to: {}", email);
-        } catch (Exception e) {
-            logger.error("Failed to send password reset email to: {}, error: {}", email, e.getMessage());
-        }
+        // Queue password reset email in the same transaction as the token
+        emailService.sendPasswordResetEmail(email, token);
+        logger.info("Password reset email queued for: {}", email);
         
         // For debugging only (remove in production!)
         if (logger.isDebugEnabled()) {
@@ -96,6 +94,7 @@ public class PasswordResetService {
         User user = resetToken.getUser();
         user.setPassword(passwordEncoder.encode(newPassword));
         userRepository.save(user);
+        principalCacheService.invalidate(user.getEmail());
         
         // Mark token as used
         resetToken.setUsed(true);
@@ -105,10 +104,4 @@ public class PasswordResetService {
         
         return "Password reset successfully";
     }
-    
-    @Transactional
-    public void cleanupExpiredTokens() {
-        tokenRepository.deleteExpiredAndUsedTokens(LocalDateTime.now());
-        logger.debug("Cleaned up expired password reset tokens");
-    }
 }
\ No newline at end of file
@@ -0,0 +1,107 @@
+package com.synth.flashcard.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.synth.flashcard.entity.User;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Short-lived, bounded cache of authenticated principals keyed by JWT subject (email), so the JWT
+ * filter does not query the users table on every request. Changes to a user (password reset, email
+ * verification, subscription tier) invalidate the entry here and, over Redis, on every other node;
+ * the TTL bounds staleness if a broadcast is lost.
+ */
+@Service
+public class PrincipalCacheService implements MessageListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(PrincipalCacheService.class);
+
+    private static final String CHANNEL = "principal_invalidation";
+
+    @Value("${app.auth.principal-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${app.auth.principal-cache.max-size:10000}")
+    private long maxSize;
+
+    @Autowired
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private RedisMessageListenerContainer listenerContainer;
+
+    private Cache<String, User> principals;
+
+    @PostConstruct
+    public void init() {
+        principals = Caffeine.newBuilder()
+            .maximumSize(maxSize)
+            .expireAfterWrite(Duration.ofMillis(ttlMs))
+            .build();
+        listenerContainer.addMessageListener(this, new ChannelTopic(CHANNEL));
+    }
+
+    /**
+     * The principal for a token subject. Unknown users are not cached, so the lookup throws every time.
+     * Each caller gets its own copy, as controllers modify and save the principal they are handed.
+     */
+    public User load(String username) {
+        User cached = principals.get(username, key -> (User) userDetailsService.loadUserByUsername(key));
+        return copyOf(cached);
+    }
+
+    // Runs after commit when called inside a transaction, so the next request reloads the committed row
+    public void invalidate(String username) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    invalidateAndBroadcast(username);
+                }
+            });
+        } else {
+            invalidateAndBroadcast(username);
+        }
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        principals.invalidate(new String(message.getBody(), StandardCharsets.UTF_8));
+    }
+
+    private void invalidateAndBroadcast(String username) {
+        principals.invalidate(username);
+        try {
+            redisTemplate.convertAndSend(CHANNEL, username);
+        } catch (Exception e) {
+            logger.warn("Principal invalidation broadcast failed, other nodes rely on the TTL: {}", e.getMessage());
+        }
+    }
+
+    private User copyOf(User user) {
+        User copy = new User(user.getEmail(), user.getPassword());
+        copy.setId(user.getId());
+        copy.setCreatedAt(user.getCreatedAt());
+        copy.setSubscriptionTier(user.getSubscriptionTier());
+        copy.setEmailVerified(user.isEmailVerified());
+        return copy;
+    }
+}
\ No newline at end of file
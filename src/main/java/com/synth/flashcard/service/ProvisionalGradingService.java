@@ -0,0 +1,64 @@
+package com.synth.flashcard.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Cheap local grade shown while the LLM grade is in flight: the share of the expected answer's
+ * keywords that appear in the user's answer. Deliberately low confidence; the final grade replaces it.
+ */
+@Service
+public class ProvisionalGradingService {
+
+    private static final double PROVISIONAL_CONFIDENCE = 0.3;
+
+    private static final Set<String> STOP_WORDS = Set.of(
+        "the", "and", "for", "are", "was", "were", "that", "this", "with", "from", "into", "its",
+        "but", "not", "can", "has", "have", "had", "which", "who", "what", "when", "where", "how",
+        "their", "they", "them", "than", "then", "also", "such", "been", "being", "will", "would"
+    );
+
+    public GeminiService.GradingResult grade(String correctAnswer, String userAnswer) {
+        GeminiService.GradingResult result = new GeminiService.GradingResult();
+        result.setConfidence(PROVISIONAL_CONFIDENCE);
+        result.setFeedback("Provisional score, final grading in progress");
+
+        String expected = normalize(correctAnswer);
+        String actual = normalize(userAnswer);
+        if (actual.isEmpty()) {
+            result.setScore(0.0);
+            return result;
+        }
+        if (expected.equals(actual)) {
+            result.setScore(1.0);
+            return result;
+        }
+
+        Set<String> expectedKeywords = keywords(expected);
+        if (expectedKeywords.isEmpty()) {
+            result.setScore(0.0);
+            return result;
+        }
+        Set<String> actualKeywords = keywords(actual);
+        long matched = expectedKeywords.stream().filter(actualKeywords::contains).count();
+        result.setScore((double) matched / expectedKeywords.size());
+        return result;
+    }
+
+    private String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return text.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").trim();
+    }
+
+    private Set<String> keywords(String normalized) {
+        return Arrays.stream(normalized.split(" "))
+            .filter(token -> token.length() > 2 && !STOP_WORDS.contains(token))
+            .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,369 @@
+package com.synth.flashcard.service;
+
+import com.synth.flashcard.config.AsyncConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Two-tier token-bucket rate limiter. The global bucket for each key lives in Redis and is changed only
+ * by scripts/rate_limit.lua, atomically. Each node leases slices of it into a local bucket and answers
+ * most checks from that slice with a single CAS, topping it up in the background before it runs dry.
+ * Tokens a node leased but did not use are handed back when the lease expires, so the global limit holds
+ * across nodes apart from tokens in flight.
+ *
+ * While Redis is unreachable each node enforces the limit on its own from an in-memory bucket, so
+ * requests keep flowing and are still bounded per node.
+ */
+@Service
+public class RateLimiterService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimiterService.class);
+
+    public static final String LIMIT_HEADER = "RateLimit-Limit";
+    public static final String REMAINING_HEADER = "RateLimit-Remaining";
+    public static final String RESET_HEADER = "RateLimit-Reset";
+
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> SCRIPT = new DefaultRedisScript<>();
+
+    static {
+        SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("scripts/rate_limit.lua")));
+        SCRIPT.setResultType(List.class);
+    }
+
+    @Value("${app.rate-limit.lease-fraction:0.1}")
+    private double leaseFraction;
+
+    @Value("${app.rate-limit.max-lease:50}")
+    private int maxLease;
+
+    @Value("${app.rate-limit.lease-ttl-ms:2000}")
+    private long leaseTtlMs;
+
+    @Value("${app.rate-limit.redis-retry-ms:5000}")
+    private long redisRetryMs;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    @Qualifier(AsyncConfig.RATE_LIMIT_EXECUTOR)
+    private Executor leaseExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private final Map<String, LocalBucket> buckets = new ConcurrentHashMap<>();
+
+    // Registered once; tryAcquire is too hot for a registry lookup per decision
+    private Counter leasedAllowed;
+    private Counter redisAllowed;
+    private Counter redisDenied;
+    private Counter cachedDenied;
+    private Counter fallbackAllowed;
+    private Counter fallbackDenied;
+    private Timer leaseTimer;
+
+    // Until this time checks skip Redis and use the per-node fallback buckets
+    private volatile long redisRetryAt;
+
+    @PostConstruct
+    public void init() {
+        leasedAllowed = decisionCounter("lease", "allowed");
+        redisAllowed = decisionCounter("redis", "allowed");
+        redisDenied = decisionCounter("redis", "denied");
+        cachedDenied = decisionCounter("denial-cache", "denied");
+        fallbackAllowed = decisionCounter("fallback", "allowed");
+        fallbackDenied = decisionCounter("fallback", "denied");
+        leaseTimer = Timer.builder("rate_limit.lease")
+            .description("Rate limit script round trips to Redis")
+            .register(meterRegistry);
+    }
+
+    // The source says where a decision came from: a node's lease, Redis, a cached denial or the fallback
+    private Counter decisionCounter(String source, String outcome) {
+        return Counter.builder("rate_limit.decisions")
+            .description("Rate limit checks by where they were answered")
+            .tag("source", source)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    // Bucket of one user under a quota; shared by the aspect and callers that charge a quota themselves
+    public static String userKey(String bucket, Long userId) {
+        return "rate_limit:" + bucket + ":user:" + userId;
+    }
+
+    /**
+     * Takes one token from the bucket for key, which holds limit tokens and refills completely over
+     * window seconds. Only a node without leased tokens for the key waits on Redis.
+     */
+    public Decision tryAcquire(String key, int limit, int windowSeconds) {
+        long now = System.currentTimeMillis();
+        long windowMs = windowSeconds * 1000L;
+        LocalBucket bucket = buckets.get(key);
+        if (bucket == null || bucket.limit != limit || bucket.windowMs != windowMs) {
+            // A tier change resizes a user's bucket; Redis adopts the new capacity on the next lease
+            bucket = buckets.compute(key, (k, existing) ->
+                existing != null && existing.limit == limit && existing.windowMs == windowMs
+                    ? existing : new LocalBucket(limit, windowMs, leaseSize(limit)));
+        }
+        bucket.lastUsed = now;
+
+        long left = bucket.takeLeased(now);
+        if (left >= 0) {
+            if (bucket.leaseSize > 1 && left <= bucket.leaseSize / 2) {
+                leaseInBackground(key, bucket);
+            }
+            leasedAllowed.increment();
+            return bucket.allowed(left, now);
+        }
+        // Recently refused by the global bucket; no point asking Redis again before a token can exist
+        if (now < bucket.deniedUntil) {
+            cachedDenied.increment();
+            return bucket.denied(now);
+        }
+        if (now < redisRetryAt) {
+            return count(bucket.takeLocally(now), fallbackAllowed, fallbackDenied);
+        }
+        try {
+            return count(leaseAndTake(key, bucket, now), redisAllowed, redisDenied);
+        } catch (RuntimeException e) {
+            redisUnavailable(e);
+            return count(bucket.takeLocally(now), fallbackAllowed, fallbackDenied);
+        }
+    }
+
+    private static Decision count(Decision decision, Counter allowed, Counter denied) {
+        (decision.isAllowed() ? allowed : denied).increment();
+        return decision;
+    }
+
+    private Decision leaseAndTake(String key, LocalBucket bucket, long now) {
+        long granted = lease(key, bucket, bucket.leaseSize);
+        if (granted == 0) {
+            bucket.deniedUntil = now + bucket.retryAfterMs;
+            return bucket.denied(now);
+        }
+        bucket.addLease(granted - 1, now + leaseTtlMs);
+        return bucket.allowed(bucket.leased.get(), now);
+    }
+
+    private void leaseInBackground(String key, LocalBucket bucket) {
+        if (System.currentTimeMillis() < redisRetryAt || !bucket.leasing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            leaseExecutor.execute(() -> {
+                try {
+                    long granted = lease(key, bucket, bucket.leaseSize);
+                    if (granted > 0) {
+                        bucket.addLease(granted, System.currentTimeMillis() + leaseTtlMs);
+                    }
+                } catch (RuntimeException e) {
+                    redisUnavailable(e);
+                } finally {
+                    bucket.leasing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bucket.leasing.set(false);
+        }
+    }
+
+    // One script call; a negative count returns tokens to the global bucket
+    private long lease(String key, LocalBucket bucket, long tokens) {
+        long started = System.nanoTime();
+        List<?> result = redisTemplate.execute(SCRIPT, List.of(key),
+            String.valueOf(bucket.limit), String.valueOf(bucket.windowMs), String.valueOf(tokens));
+        leaseTimer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        if (result == null || result.size() < 4) {
+            throw new IllegalStateException("Unexpected rate limit script result: " + result);
+        }
+        long now = System.currentTimeMillis();
+        bucket.globalRemaining = ((Number) result.get(1)).longValue();
+        bucket.resetAt = now + ((Number) result.get(2)).longValue();
+        bucket.retryAfterMs = ((Number) result.get(3)).longValue();
+        return ((Number) result.get(0)).longValue();
+    }
+
+    private void redisUnavailable(RuntimeException e) {
+        redisRetryAt = System.currentTimeMillis() + redisRetryMs;
+        logger.warn("Rate limit store unavailable, limiting per node for {}ms: {}", redisRetryMs, e.getMessage());
+    }
+
+    /**
+     * Returns tokens from expired leases to Redis and forgets keys idle for a whole window. Returning
+     * them keeps a client that moves between nodes from losing quota stranded on the one it left.
+     */
+    @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval-ms:1000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        buckets.forEach((key, bucket) -> {
+            if (now >= bucket.leaseExpiresAt) {
+                long unused = bucket.leased.getAndSet(0);
+                if (unused > 0 && now >= redisRetryAt) {
+                    try {
+                        lease(key, bucket, -unused);
+                    } catch (RuntimeException e) {
+                        redisUnavailable(e);
+                    }
+                }
+                if (now - bucket.lastUsed > bucket.windowMs) {
+                    buckets.remove(key, bucket);
+                }
+            }
+        });
+    }
+
+    // Small limits lease one token at a time and are not prefetched, so no node holds a share of them
+    private int leaseSize(int limit) {
+        return (int) Math.max(1, Math.min(maxLease, limit * leaseFraction));
+    }
+
+    private static class LocalBucket {
+        final int limit;
+        final long windowMs;
+        final int leaseSize;
+        final AtomicLong leased = new AtomicLong();
+        final AtomicBoolean leasing = new AtomicBoolean();
+        volatile long leaseExpiresAt;
+        volatile long deniedUntil;
+        volatile long lastUsed;
+
+        // Global state as of the last script reply, for the response headers
+        volatile long globalRemaining;
+        volatile long resetAt;
+        volatile long retryAfterMs;
+
+        // Per-node bucket used only while Redis is unreachable
+        private double localTokens;
+        private long localTs;
+
+        LocalBucket(int limit, long windowMs, int leaseSize) {
+            this.limit = limit;
+            this.windowMs = windowMs;
+            this.leaseSize = leaseSize;
+            this.localTokens = limit;
+        }
+
+        // Tokens left in the lease after taking one, or -1 if it is empty or expired
+        long takeLeased(long now) {
+            if (now >= leaseExpiresAt) {
+                return -1;
+            }
+            long current;
+            do {
+                current = leased.get();
+                if (current <= 0) {
+                    return -1;
+                }
+            } while (!leased.compareAndSet(current, current - 1));
+            return current - 1;
+        }
+
+        void addLease(long tokens, long expiresAt) {
+            leaseExpiresAt = expiresAt;
+            leased.addAndGet(tokens);
+        }
+
+        Decision allowed(long leasedLeft, long now) {
+            return new Decision(true, limit, leasedLeft + globalRemaining, Math.max(0, resetAt - now), 0);
+        }
+
+        Decision denied(long now) {
+            return new Decision(false, limit, 0, Math.max(0, resetAt - now), Math.max(0, deniedUntil - now));
+        }
+
+        synchronized Decision takeLocally(long now) {
+            double rate = (double) limit / windowMs;
+            if (localTs > 0) {
+                localTokens = Math.min(limit, localTokens + (now - localTs) * rate);
+            }
+            localTs = now;
+            if (localTokens >= 1) {
+                localTokens -= 1;
+                return new Decision(true, limit, (long) localTokens, (long) Math.ceil((limit - localTokens) / rate), 0);
+            }
+            return new Decision(false, limit, 0, (long) Math.ceil((limit - localTokens) / rate),
+                (long) Math.ceil((1 - localTokens) / rate));
+        }
+    }
+
+    public static class Decision {
+        private final boolean allowed;
+        private final int limit;
+        private final long remaining;
+        private final long resetMs;
+        private final long retryAfterMs;
+
+        public Decision(boolean allowed, int limit, long remaining, long resetMs, long retryAfterMs) {
+            this.allowed = allowed;
+            this.limit = limit;
+            this.remaining = remaining;
+            this.resetMs = resetMs;
+            this.retryAfterMs = retryAfterMs;
+        }
+
+        public boolean isAllowed() { return allowed; }
+        public int getLimit() { return limit; }
+        public long getRemaining() { return remaining; }
+        public long getResetMs() { return resetMs; }
+        public long getRetryAfterMs() { return retryAfterMs; }
+
+        // Header values are whole seconds, rounded up so clients never retry early
+        public HttpHeaders toHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(LIMIT_HEADER, String.valueOf(limit));
+            headers.set(REMAINING_HEADER, String.valueOf(Math.min(limit, remaining)));
+            headers.set(RESET_HEADER, String.valueOf(toSeconds(resetMs)));
+            if (!allowed) {
+                headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1, toSeconds(retryAfterMs))));
+            }
+            return headers;
+        }
+
+        private static long toSeconds(long millis) {
+            return (millis + 999) / 1000;
+        }
+    }
+
+    public static class RateLimitExceededException extends ResponseStatusException {
+        private final HttpHeaders headers;
+
+        public RateLimitExceededException(Decision decision) {
+            super(HttpStatus.TOO_MANY_REQUESTS, "Rate limit exceeded. Please try again later.");
+            this.headers = decision.toHeaders();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return headers;
+        }
+    }
+}
\ No newline at end of file
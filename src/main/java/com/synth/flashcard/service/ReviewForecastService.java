@@ -0,0 +1,102 @@
+package com.synth.flashcard.service;
+
+import com.synth.flashcard.config.CacheConfig;
+import com.synth.flashcard.dto.ReviewForecastDto;
+import com.synth.flashcard.repository.CardReviewStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Daily review workload forecast. Builds a per-day histogram from the stored next-due times with one
+ * grouped query, caches the full one-year horizon per user and slices it for the requested window.
+ */
+@Service
+public class ReviewForecastService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReviewForecastService.class);
+
+    public static final int MAX_FORECAST_DAYS = 365;
+
+    @Autowired
+    private CardReviewStateRepository cardReviewStateRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    public ReviewForecastDto getForecast(Long userId, int days) {
+        if (days < 1 || days > MAX_FORECAST_DAYS) {
+            throw new IllegalArgumentException("days must be between 1 and " + MAX_FORECAST_DAYS);
+        }
+
+        LocalDate today = LocalDate.now();
+        ReviewForecastDto horizon = getCached(userId);
+        // Buckets are relative to the day they were built, so a cached entry from yesterday is stale
+        if (horizon == null || !today.equals(horizon.getStartDate())) {
+            horizon = buildHorizon(userId, today);
+            putCached(userId, horizon);
+        }
+
+        long[] daily = Arrays.copyOf(horizon.getDailyCounts(), days);
+        long total = Arrays.stream(daily).sum();
+        return new ReviewForecastDto(today, days, horizon.getOverdue(), total, daily);
+    }
+
+    public void evict(Long userId) {
+        try {
+            Cache cache = cacheManager.getCache(CacheConfig.REVIEW_FORECAST_CACHE);
+            if (cache != null) {
+                cache.evict(userId);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to evict review forecast for user {}: {}", userId, e.getMessage());
+        }
+    }
+
+    private ReviewForecastDto buildHorizon(Long userId, LocalDate today) {
+        List<CardReviewStateRepository.DailyDueCount> counts = cardReviewStateRepository
+            .countDueByDay(userId, today.plusDays(MAX_FORECAST_DAYS).atStartOfDay());
+
+        long[] daily = new long[MAX_FORECAST_DAYS];
+        long overdue = 0;
+        for (CardReviewStateRepository.DailyDueCount count : counts) {
+            long offset = ChronoUnit.DAYS.between(today, count.getDay());
+            if (offset < 0) {
+                overdue += count.getReviews();
+                daily[0] += count.getReviews();
+            } else if (offset < MAX_FORECAST_DAYS) {
+                daily[(int) offset] += count.getReviews();
+            }
+        }
+        return new ReviewForecastDto(today, MAX_FORECAST_DAYS, overdue, Arrays.stream(daily).sum(), daily);
+    }
+
+    private ReviewForecastDto getCached(Long userId) {
+        try {
+            Cache cache = cacheManager.getCache(CacheConfig.REVIEW_FORECAST_CACHE);
+            return cache != null ? cache.get(userId, ReviewForecastDto.class) : null;
+        } catch (Exception e) {
+            logger.warn("Review forecast cache unavailable: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void putCached(Long userId, ReviewForecastDto forecast) {
+        try {
+            Cache cache = cacheManager.getCache(CacheConfig.REVIEW_FORECAST_CACHE);
+            if (cache != null) {
+                cache.put(userId, forecast);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to cache review forecast for user {}: {}", userId, e.getMessage());
+        }
+    }
+}
@@ -1,72 +1,240 @@
 package com.synth.flashcard.service;
 
+import com.synth.flashcard.dto.CardPriorityDto;
+import com.synth.flashcard.dto.CardScheduleDto;
 import com.synth.flashcard.entity.Card;
+import com.synth.flashcard.entity.CardReviewState;
+import com.synth.flashcard.entity.Deck;
 import com.synth.flashcard.entity.StudySession;
-import com.synth.flashcard.repository.StudySessionRepository;
+import com.synth.flashcard.entity.User;
+import com.synth.flashcard.repository.CardRepository;
+import com.synth.flashcard.repository.CardReviewStateRepository;
+import com.synth.flashcard.repository.DeckRepository;
+import com.synth.flashcard.scheduler.ReviewState;
+import com.synth.flashcard.scheduler.ScheduleBatch;
+import com.synth.flashcard.scheduler.SchedulerEngine;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class SpacedRepetitionService {
 
+    private static final double MINUTES_PER_DAY = 24 * 60;
+
     @Autowired
-    private StudySessionRepository studySessionRepository;
+    private SchedulerEngine schedulerEngine;
 
-    public boolean isCardDueForReview(Card card, Long userId) {
-        List<StudySession> sessions = studySessionRepository
-                .findByCardIdAndUserIdOrderByStudiedAtDesc(card.getId(), userId);
-        
+    @Autowired
+    private CardReviewStateRepository cardReviewStateRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private StudyWriteBuffer studyWriteBuffer;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private StudyQueueService studyQueueService;
+
+    @Autowired
+    private ReviewForecastService reviewForecastService;
+
+    /**
+     * Creates review state rows for freshly generated cards so they show up in the due queue immediately.
+     */
+    public void initializeReviewStates(User user, Deck deck, List<Card> cards) {
+        LocalDateTime now = LocalDateTime.now();
+        List<CardReviewState> states = cards.stream()
+            .map(card -> new CardReviewState(user, card, deck, now))
+            .toList();
+        studyQueueService.schedule(user.getId(), cardReviewStateRepository.saveAll(states));
+        reviewForecastService.evict(user.getId());
+    }
+
+    /**
+     * Applies a graded answer to the card's review state and reschedules it with the configured engine.
+     * Replaces re-reading the full session history on every answer.
+     */
+    public CardReviewState recordReview(User user, Card card, double score, LocalDateTime reviewedAt) {
+        CardReviewState state = cardReviewStateRepository.findByUserIdAndCardId(user.getId(), card.getId())
+            .orElseGet(() -> {
+                // Upserted, so a concurrent first answer to the same card cannot fail on the unique key
+                cardReviewStateRepository.insertMissing(user.getId(), List.of(card.getId()), reviewedAt);
+                return cardReviewStateRepository.findByUserIdAndCardId(user.getId(), card.getId()).orElseThrow();
+            });
+        advance(state, score, reviewedAt);
+
+        CardReviewState saved = cardReviewStateRepository.save(state);
+        studyQueueService.schedule(user.getId(), card.getId(), saved.getDueAt());
+        reviewForecastService.evict(user.getId());
+        return saved;
+    }
+
+    private void advance(CardReviewState state, double score, LocalDateTime reviewedAt) {
+        // Offline reviews can arrive older than the last online one; treat those as same-day repeats
+        double elapsedDays = state.getLastReviewedAt() != null
+            ? Math.max(0.0, Duration.between(state.getLastReviewedAt(), reviewedAt).toMinutes() / MINUTES_PER_DAY)
+            : 0.0;
+        ReviewState next = schedulerEngine.review(toReviewState(state), score, elapsedDays);
+
+        state.setReviewCount(next.getReviewCount());
+        state.setEase(next.getEase());
+        state.setStability(next.getStability());
+        state.setMemoryDifficulty(next.getMemoryDifficulty());
+        state.setIntervalDays(next.getIntervalDays());
+        state.setLastScore(score);
+        state.setLastReviewedAt(reviewedAt);
+        state.setDueAt(reviewedAt.plusMinutes(Math.round(next.getIntervalDays() * MINUTES_PER_DAY)));
+    }
+
+    /**
+     * Applies a final grade: reschedules the card and adjusts its difficulty. Shared by the synchronous
+     * answer path and background grading.
+     */
+    public CardReviewState applyGrade(User user, Card card, double score, LocalDateTime reviewedAt) {
+        CardReviewState reviewState = recordReview(user, card, score, reviewedAt);
+
+        Card.Difficulty newDifficulty = calculateNewDifficulty(card, score, reviewState.getReviewCount());
+        if (newDifficulty != card.getDifficulty()) {
+            card.setDifficulty(newDifficulty);
+            if (studyWriteBuffer.isEnabled()) {
+                studyWriteBuffer.putDifficulty(card);
+            } else {
+                cardRepository.save(card);
+                deckRepository.bumpContentVersion(card.getDeck().getId());
+                entityCacheService.evictCard(card.getId(), card.getDeck().getId());
+            }
+        }
+        return reviewState;
+    }
+
+    /**
+     * Applies a batch of grades in the order given, as applyGrade would one by one. The user's states
+     * for the batch are read in one query and written in one saveAll, and each card whose difficulty
+     * changed is written once with its final value.
+     */
+    public List<CardReviewState> applyGrades(User user, List<StudySession> sessions) {
         if (sessions.isEmpty()) {
-            return true; // New card, due for first review
+            return List.of();
         }
-        
-        StudySession lastSession = sessions.get(0);
-        LocalDateTime nextDueDate = calculateNextDueDate(lastSession, sessions.size());
-        
-        return LocalDateTime.now().isAfter(nextDueDate);
+        Set<Long> cardIds = sessions.stream().map(session -> session.getCard().getId()).collect(Collectors.toSet());
+        Map<Long, CardReviewState> states = new LinkedHashMap<>();
+        for (CardReviewState state : cardReviewStateRepository.findByUserIdAndCardIdIn(user.getId(), cardIds)) {
+            states.put(state.getCard().getId(), state);
+        }
+        if (states.size() < cardIds.size()) {
+            // First reviews: rows are upserted and read back, as recordReview does for a single card
+            Set<Long> missing = new LinkedHashSet<>(cardIds);
+            missing.removeAll(states.keySet());
+            cardReviewStateRepository.insertMissing(user.getId(), missing, sessions.get(0).getStudiedAt());
+            for (CardReviewState state : cardReviewStateRepository.findByUserIdAndCardIdIn(user.getId(), missing)) {
+                states.put(state.getCard().getId(), state);
+            }
+        }
+
+        Map<Long, Card> changedCards = new LinkedHashMap<>();
+        for (StudySession session : sessions) {
+            Card card = session.getCard();
+            CardReviewState state = states.get(card.getId());
+            advance(state, session.getScore(), session.getStudiedAt());
+
+            Card.Difficulty newDifficulty = calculateNewDifficulty(card, session.getScore(), state.getReviewCount());
+            if (newDifficulty != card.getDifficulty()) {
+                card.setDifficulty(newDifficulty);
+                changedCards.put(card.getId(), card);
+            }
+        }
+
+        List<CardReviewState> saved = cardReviewStateRepository.saveAll(states.values());
+        studyQueueService.schedule(user.getId(), saved);
+        reviewForecastService.evict(user.getId());
+
+        if (changedCards.isEmpty()) {
+            return saved;
+        }
+        if (studyWriteBuffer.isEnabled()) {
+            changedCards.values().forEach(studyWriteBuffer::putDifficulty);
+        } else {
+            cardRepository.saveAll(changedCards.values());
+            Set<Long> deckIds = new LinkedHashSet<>();
+            for (Card card : changedCards.values()) {
+                deckIds.add(card.getDeck().getId());
+                entityCacheService.evictCard(card.getId(), card.getDeck().getId());
+            }
+            deckIds.forEach(deckRepository::bumpContentVersion);
+        }
+        return saved;
     }
 
-    public LocalDateTime calculateNextDueDate(StudySession lastSession, int reviewCount) {
-        double score = lastSession.getScore();
-        LocalDateTime lastStudied = lastSession.getStudiedAt();
-        
-        // Simple spaced repetition algorithm based on SM-2
-        int interval = calculateInterval(reviewCount, score);
-        return lastStudied.plusDays(interval);
+    public ReviewState toReviewState(CardReviewState state) {
+        return new ReviewState(
+            state.getEase() != null ? state.getEase() : ReviewState.DEFAULT_EASE,
+            state.getStability() != null ? state.getStability() : 0.0,
+            state.getMemoryDifficulty() != null ? state.getMemoryDifficulty() : 0.0,
+            intervalDaysOf(state),
+            state.getReviewCount()
+        );
     }
 
-    private int calculateInterval(int reviewCount, double score) {
-        // Base intervals for different review counts
-        int[] baseIntervals = {1, 3, 7, 14, 30, 60, 120};
-        
-        // Determine base interval
-        int baseInterval;
-        if (reviewCount <= baseIntervals.length) {
-            baseInterval = baseIntervals[Math.min(reviewCount - 1, baseIntervals.length - 1)];
-        } else {
-            // For reviews beyond the base array, use exponential growth
-            baseInterval = baseIntervals[baseIntervals.length - 1] * 
-                          (int) Math.pow(2, reviewCount - baseIntervals.length);
+    /**
+     * Computes due times and priorities for a batch of cards in one pass of the scheduler engine.
+     */
+    public void computeBatch(ScheduleBatch batch) {
+        schedulerEngine.computeBatch(batch, System.currentTimeMillis());
+    }
+
+    public long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    public boolean isCardDueForReview(Card card, Long userId) {
+        return cardReviewStateRepository.findByUserIdAndCardId(userId, card.getId())
+            .map(state -> LocalDateTime.now().isAfter(calculateNextDueDate(state)))
+            .orElse(true); // New card, due for first review
+    }
+
+    public LocalDateTime calculateNextDueDate(CardReviewState state) {
+        if (state.getLastReviewedAt() == null || state.getIntervalDays() == null) {
+            return state.getDueAt();
         }
-        
-        // Modify interval based on performance
-        double multiplier = calculateMultiplier(score);
-        int adjustedInterval = (int) (baseInterval * multiplier);
-        
-        // Ensure minimum interval of 1 day
-        return Math.max(1, adjustedInterval);
+        return state.getLastReviewedAt().plusMinutes(Math.round(state.getIntervalDays() * MINUTES_PER_DAY));
     }
 
-    private double calculateMultiplier(double score) {
-        // Score-based multiplier for interval adjustment
-        if (score >= 0.9) return 1.3;      // Excellent - increase interval
-        else if (score >= 0.8) return 1.1; // Good - slight increase
-        else if (score >= 0.6) return 1.0; // Average - maintain interval
-        else if (score >= 0.4) return 0.7; // Poor - reduce interval
-        else return 0.5;                    // Very poor - significantly reduce
+    // Rows backfilled from legacy history have no stored interval; recover it from the stored due date
+    private double intervalDaysOf(CardReviewState state) {
+        return intervalDaysOf(state.getIntervalDays(), state.getLastReviewedAt(), state.getDueAt());
+    }
+
+    private double intervalDaysOf(Double intervalDays, LocalDateTime lastReviewedAt, LocalDateTime dueAt) {
+        if (intervalDays != null) {
+            return intervalDays;
+        }
+        if (lastReviewedAt == null || dueAt == null) {
+            return 0.0;
+        }
+        return Math.max(0.0, Duration.between(lastReviewedAt, dueAt).toMinutes() / MINUTES_PER_DAY);
     }
 
     public Card.Difficulty calculateNewDifficulty(Card card, double score, int reviewCount) {
@@ -91,25 +259,70 @@ public class SpacedRepetitionService {
     }
 
     public int getPriorityScore(Card card, Long userId) {
-        List<StudySession> sessions = studySessionRepository
-                .findByCardIdAndUserIdOrderByStudiedAtDesc(card.getId(), userId);
-        
-        if (sessions.isEmpty()) {
-            return 100; // Highest priority for new cards
+        Optional<CardReviewState> state = cardReviewStateRepository.findByUserIdAndCardId(userId, card.getId());
+        if (state.isEmpty()) {
+            return SchedulerEngine.NEW_CARD_PRIORITY; // Highest priority for new cards
         }
-        
-        StudySession lastSession = sessions.get(0);
-        LocalDateTime nextDue = calculateNextDueDate(lastSession, sessions.size());
-        LocalDateTime now = LocalDateTime.now();
-        
-        if (now.isAfter(nextDue)) {
-            // Overdue cards get higher priority
-            long hoursOverdue = java.time.Duration.between(nextDue, now).toHours();
-            return Math.min(100, 50 + (int) hoursOverdue);
-        } else {
-            // Future cards get lower priority
-            long hoursUntilDue = java.time.Duration.between(now, nextDue).toHours();
-            return Math.max(1, 50 - (int) (hoursUntilDue / 24));
+
+        CardReviewState reviewState = state.get();
+        ScheduleBatch batch = new ScheduleBatch(1);
+        batch.set(0, card.getId(),
+            reviewState.getStability() != null ? reviewState.getStability() : 0.0,
+            intervalDaysOf(reviewState),
+            reviewState.getReviewCount(),
+            reviewState.getLastReviewedAt() != null ? toEpochMillis(reviewState.getLastReviewedAt()) : 0L,
+            toEpochMillis(reviewState.getDueAt()));
+        computeBatch(batch);
+        return batch.priorities()[0];
+    }
+
+    /**
+     * Priority of every card in a deck, highest first, from a single joined query.
+     */
+    public List<CardPriorityDto> getPriorityScores(Long deckId, Long userId) {
+        return rankDeckByPriority(deckId, userId).stream()
+            .map(card -> new CardPriorityDto(card.getCardId(), card.getPriority()))
+            .toList();
+    }
+
+    /**
+     * Loads a deck with the user's schedule and orders it by priority (ties: earliest due, then card id).
+     */
+    public List<CardScheduleDto> rankDeckByPriority(Long deckId, Long userId) {
+        List<CardScheduleDto> cards = cardReviewStateRepository.findDeckSchedule(deckId, userId);
+        // Another user's deck reads as missing; an owned deck may simply have no cards
+        if (cards.isEmpty() && !deckRepository.existsOwned(deckId, userId)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Deck not found");
+        }
+
+        ScheduleBatch batch = new ScheduleBatch(cards.size());
+        for (int i = 0; i < cards.size(); i++) {
+            CardScheduleDto card = cards.get(i);
+            boolean scheduled = card.getDueAt() != null;
+            batch.set(i, card.getCardId(),
+                card.getStability() != null ? card.getStability() : 0.0,
+                intervalDaysOf(card.getIntervalDays(), card.getLastReviewedAt(), card.getDueAt()),
+                scheduled ? card.getReviewCount() : 0,
+                card.getLastReviewedAt() != null ? toEpochMillis(card.getLastReviewedAt()) : 0L,
+                scheduled ? toEpochMillis(card.getDueAt()) : 0L);
+        }
+        computeBatch(batch);
+
+        int[] priorities = batch.priorities();
+        long[] dueAt = batch.dueAtMillis();
+        Integer[] order = new Integer[cards.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            cards.get(i).setPriority(priorities[i]);
+        }
+        Arrays.sort(order, Comparator.<Integer>comparingInt(i -> -priorities[i])
+            .thenComparingLong(i -> dueAt[i])
+            .thenComparing(i -> cards.get(i).getCardId()));
+
+        List<CardScheduleDto> ranked = new ArrayList<>(order.length);
+        for (Integer index : order) {
+            ranked.add(cards.get(index));
         }
+        return ranked;
     }
 }
\ No newline at end of file
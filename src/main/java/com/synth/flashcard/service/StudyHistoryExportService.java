@@ -0,0 +1,257 @@
+package com.synth.flashcard.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.synth.flashcard.util.KeysetCursor;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Streams a user's study history straight from a forward-only JDBC cursor to the response. Rows are
+ * fetched in batches of the configured fetch size and written one at a time, so memory stays flat
+ * however long the history is. Every row carries the keyset cursor that resumes the export after it.
+ */
+@Service
+public class StudyHistoryExportService {
+
+    public static final int MAX_LIMIT = 100_000;
+
+    private static final String[] CSV_COLUMNS = {
+        "id", "studiedAt", "cardId", "deckId", "deckName", "question", "response",
+        "score", "confidence", "feedback", "gradingStatus", "cursor"
+    };
+
+    public enum Format {
+        NDJSON("application/x-ndjson", "ndjson"),
+        CSV("text/csv", "csv");
+
+        private final MediaType mediaType;
+        private final String extension;
+
+        Format(String mediaType, String extension) {
+            this.mediaType = MediaType.parseMediaType(mediaType);
+            this.extension = extension;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public static Format parse(String format) {
+            for (Format candidate : values()) {
+                if (candidate.extension.equalsIgnoreCase(format)) {
+                    return candidate;
+                }
+            }
+            throw new IllegalArgumentException("format must be ndjson or csv");
+        }
+    }
+
+    @Value("${app.study.export.fetch-size:500}")
+    private int fetchSize;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private StudyWriteBuffer studyWriteBuffer;
+
+    // Own template so the fetch size only applies to exports
+    private JdbcTemplate cursorTemplate;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void init() {
+        cursorTemplate = new JdbcTemplate(dataSource);
+        cursorTemplate.setFetchSize(fetchSize);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes sessions studied in [from, to) after the cursor, oldest first, up to limit rows (all when null).
+     * The read-only transaction turns off autocommit, which PostgreSQL needs to honour the fetch size.
+     */
+    public void export(Long userId, Format format, LocalDateTime from, LocalDateTime to,
+                       KeysetCursor after, Integer limit, OutputStream out) throws IOException {
+        // Buffered answers are written first; the export transaction itself is read-only
+        if (studyWriteBuffer.isEnabled() && studyWriteBuffer.hasPendingSessions(userId)) {
+            studyWriteBuffer.flush();
+        }
+
+        StringBuilder sql = new StringBuilder(
+            "SELECT ss.id, ss.studied_at, ss.card_id, c.deck_id, d.name AS deck_name, c.question, ss.response, " +
+            "ss.score, ss.confidence, ss.feedback, ss.grading_status " +
+            "FROM study_sessions ss JOIN cards c ON c.id = ss.card_id JOIN decks d ON d.id = c.deck_id " +
+            "WHERE ss.user_id = ?");
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        if (from != null) {
+            sql.append(" AND ss.studied_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND ss.studied_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        if (after != null) {
+            sql.append(" AND (ss.studied_at, ss.id) > (?, ?)");
+            args.add(Timestamp.valueOf(after.getTimestamp()));
+            args.add(after.getId());
+        }
+        sql.append(" ORDER BY ss.studied_at, ss.id");
+        if (limit != null) {
+            sql.append(" LIMIT ?");
+            args.add(limit);
+        }
+
+        RowWriter writer = format == Format.CSV ? new CsvRowWriter(out) : new NdjsonRowWriter(out);
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> cursorTemplate.query(sql.toString(), rs -> {
+                try {
+                    writer.write(rs);
+                } catch (IOException e) {
+                    // Client went away; abandons the cursor and ends the transaction
+                    throw new UncheckedIOException(e);
+                }
+            }, args.toArray()));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.finish();
+    }
+
+    private interface RowWriter {
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static String cursorOf(ResultSet rs) throws SQLException {
+        return new KeysetCursor(rs.getTimestamp("studied_at").toLocalDateTime(), rs.getLong("id")).encode();
+    }
+
+    private static Double nullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    private class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(OutputStream out) throws IOException {
+            generator = objectMapper.getFactory().createGenerator(out);
+            // Lines are separated explicitly below instead of by Jackson's default space
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", rs.getLong("id"));
+            generator.writeStringField("studiedAt", rs.getTimestamp("studied_at").toLocalDateTime().toString());
+            generator.writeNumberField("cardId", rs.getLong("card_id"));
+            generator.writeNumberField("deckId", rs.getLong("deck_id"));
+            generator.writeStringField("deckName", rs.getString("deck_name"));
+            generator.writeStringField("question", rs.getString("question"));
+            generator.writeStringField("response", rs.getString("response"));
+            writeNullableNumber("score", nullableDouble(rs, "score"));
+            writeNullableNumber("confidence", nullableDouble(rs, "confidence"));
+            generator.writeStringField("feedback", rs.getString("feedback"));
+            generator.writeStringField("gradingStatus", rs.getString("grading_status"));
+            generator.writeStringField("cursor", cursorOf(rs));
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        private void writeNullableNumber(String field, Double value) throws IOException {
+            if (value == null) {
+                generator.writeNullField(field);
+            } else {
+                generator.writeNumberField(field, value);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.flush();
+        }
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(OutputStream out) throws IOException {
+            writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            writer.write(String.join(",", CSV_COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            Double score = nullableDouble(rs, "score");
+            Double confidence = nullableDouble(rs, "confidence");
+            writer.write(rs.getLong("id") + ",");
+            writer.write(rs.getTimestamp("studied_at").toLocalDateTime() + ",");
+            writer.write(rs.getLong("card_id") + ",");
+            writer.write(rs.getLong("deck_id") + ",");
+            writer.write(escape(rs.getString("deck_name")) + ",");
+            writer.write(escape(rs.getString("question")) + ",");
+            writer.write(escape(rs.getString("response")) + ",");
+            writer.write((score != null ? String.format(Locale.ROOT, "%.4f", score) : "") + ",");
+            writer.write((confidence != null ? String.format(Locale.ROOT, "%.4f", confidence) : "") + ",");
+            writer.write(escape(rs.getString("feedback")) + ",");
+            writer.write(escape(rs.getString("grading_status")) + ",");
+            writer.write(cursorOf(rs));
+            writer.write("\r\n");
+        }
+
+        // RFC 4180: quote fields containing separators, quotes or line breaks, doubling embedded quotes
+        private static String escape(String value) {
+            if (value == null) {
+                return "";
+            }
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return '"' + value.replace("\"", "\"\"") + '"';
+        }
+
+        @Override
+        public void finish() throws IOException {
+            writer.flush();
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,149 @@
+package com.synth.flashcard.service;
+
+import com.synth.flashcard.entity.StudyProgress;
+import com.synth.flashcard.repository.StudyProgressRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Persists study progress with one upsert per save and coalesces bursts: the first save for a
+ * (user, deck) is written immediately, later saves within the debounce window only replace a pending
+ * value that is written once when the window closes. Completion is always written straight away.
+ */
+@Service
+public class StudyProgressWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudyProgressWriter.class);
+
+    @Value("${app.study.progress.debounce-ms:1000}")
+    private long debounceMs;
+
+    @Autowired
+    private StudyProgressRepository studyProgressRepository;
+
+    @Autowired
+    private TaskScheduler taskScheduler;
+
+    private final Map<String, DebounceSlot> slots = new ConcurrentHashMap<>();
+
+    private static class DebounceSlot {
+        long lastWrittenAt;
+        StudyProgress pending;
+        boolean flushScheduled;
+    }
+
+    public StudyProgress save(StudyProgress progress) {
+        Long userId = progress.getUser().getId();
+        Long deckId = progress.getDeck().getId();
+
+        String key = slotKey(userId, deckId);
+        if (Boolean.TRUE.equals(progress.getIsCompleted()) || debounceMs <= 0) {
+            DebounceSlot slot = slots.get(key);
+            if (slot == null) {
+                write(progress);
+                return progress;
+            }
+            synchronized (slot) {
+                // Completion supersedes anything still waiting for its window
+                slot.pending = null;
+                write(progress);
+                slot.lastWrittenAt = System.currentTimeMillis();
+            }
+            return progress;
+        }
+
+        DebounceSlot slot = slots.computeIfAbsent(key, k -> new DebounceSlot());
+        synchronized (slot) {
+            long now = System.currentTimeMillis();
+            if (slot.pending == null && now - slot.lastWrittenAt >= debounceMs) {
+                write(progress);
+                slot.lastWrittenAt = now;
+                return progress;
+            }
+            slot.pending = progress;
+            if (!slot.flushScheduled) {
+                slot.flushScheduled = true;
+                taskScheduler.schedule(() -> flush(slot), Instant.ofEpochMilli(slot.lastWrittenAt + debounceMs));
+            }
+        }
+        return progress;
+    }
+
+    /**
+     * Writes the user's pending saves now, so a following read sees them.
+     */
+    public void flushUser(Long userId) {
+        String prefix = userId + ":";
+        slots.forEach((key, slot) -> {
+            if (key.startsWith(prefix)) {
+                flush(slot);
+            }
+        });
+    }
+
+    public void discard(Long userId, Long deckId) {
+        DebounceSlot slot = slots.get(slotKey(userId, deckId));
+        if (slot != null) {
+            synchronized (slot) {
+                slot.pending = null;
+            }
+        }
+    }
+
+    // Drops slots that have been idle for a while so the map only holds decks being studied
+    @Scheduled(fixedDelay = 60000)
+    public void evictIdleSlots() {
+        long cutoff = System.currentTimeMillis() - Math.max(debounceMs, 1000) * 10;
+        slots.entrySet().removeIf(entry -> {
+            DebounceSlot slot = entry.getValue();
+            synchronized (slot) {
+                return slot.pending == null && !slot.flushScheduled && slot.lastWrittenAt < cutoff;
+            }
+        });
+    }
+
+    private void flush(DebounceSlot slot) {
+        synchronized (slot) {
+            slot.flushScheduled = false;
+            StudyProgress pending = slot.pending;
+            if (pending == null) {
+                return;
+            }
+            slot.pending = null;
+            try {
+                write(pending);
+            } catch (Exception e) {
+                logger.error("Failed to write debounced progress for user {} deck {}: {}",
+                    pending.getUser().getId(), pending.getDeck().getId(), e.getMessage());
+            }
+            slot.lastWrittenAt = System.currentTimeMillis();
+        }
+    }
+
+    private void write(StudyProgress progress) {
+        Long id = Boolean.TRUE.equals(progress.getIsCompleted())
+            ? studyProgressRepository.completeProgress(progress.getUser().getId(), progress.getDeck().getId(),
+                progress.getCurrentCardIndex(), progress.getTotalCards(), progress.getCardsCompleted(),
+                progress.getLastStudiedAt())
+            : studyProgressRepository.upsertActiveProgress(progress.getUser().getId(), progress.getDeck().getId(),
+                progress.getCurrentCardIndex(), progress.getTotalCards(), progress.getCardsCompleted(),
+                progress.getLastStudiedAt());
+        if (id == null) {
+            throw new RuntimeException("Deck not found");
+        }
+        progress.setId(id);
+    }
+
+    private String slotKey(Long userId, Long deckId) {
+        return userId + ":" + deckId;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,183 @@
+package com.synth.flashcard.service;
+
+import com.synth.flashcard.entity.CardReviewState;
+import com.synth.flashcard.repository.CardReviewStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Optional per-user study queue kept in a Redis sorted set scored by due time, so "next N due cards"
+ * is a single ZRANGEBYSCORE. Postgres stays the source of truth: every write goes to card_review_states
+ * first, and a queue missing from Redis (never built, evicted or flushed) is rebuilt from there on
+ * its next read.
+ * <p>
+ * Queues are only changed through Lua scripts. A rebuild builds into a scratch key that schedule changes
+ * also go to while it runs, so changes made between the database read and the swap are kept. A built
+ * queue always holds a marker member that is never due, so a user with nothing scheduled still has a
+ * queue and is not rebuilt on every read.
+ */
+@Service
+public class StudyQueueService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudyQueueService.class);
+
+    private static final String QUEUE_KEY_PREFIX = "study_queue:";
+
+    private static final String BUILT_MARKER = "built";
+
+    private static final DefaultRedisScript<Long> UPDATE_SCRIPT = script("scripts/study_queue_update.lua");
+    private static final DefaultRedisScript<Long> REBUILD_START_SCRIPT = script("scripts/study_queue_rebuild_start.lua");
+    private static final DefaultRedisScript<Long> REBUILD_FINISH_SCRIPT = script("scripts/study_queue_rebuild_finish.lua");
+
+    @Value("${app.study.queue.redis-enabled:false}")
+    private boolean enabled;
+
+    @Value("${app.study.queue.rebuild-timeout-ms:30000}")
+    private long rebuildTimeoutMs;
+
+    @Autowired
+    private RedisTemplate<String, String> redisTemplate;
+
+    @Autowired
+    private CardReviewStateRepository cardReviewStateRepository;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void schedule(Long userId, Collection<CardReviewState> states) {
+        if (!enabled || states.isEmpty()) {
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        args.add("add");
+        for (CardReviewState state : states) {
+            args.add(score(state.getDueAt()));
+            args.add(state.getCard().getId().toString());
+        }
+        try {
+            update(userId, args);
+        } catch (Exception e) {
+            logger.warn("Failed to enqueue {} cards for user {}: {}", states.size(), userId, e.getMessage());
+        }
+    }
+
+    public void schedule(Long userId, Long cardId, LocalDateTime dueAt) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            update(userId, List.of("add", score(dueAt), cardId.toString()));
+        } catch (Exception e) {
+            logger.warn("Failed to reschedule card {} for user {}: {}", cardId, userId, e.getMessage());
+        }
+    }
+
+    public void remove(Long userId, Collection<Long> cardIds) {
+        if (!enabled || cardIds.isEmpty()) {
+            return;
+        }
+        try {
+            List<String> args = new ArrayList<>();
+            args.add("remove");
+            cardIds.forEach(cardId -> args.add(cardId.toString()));
+            update(userId, args);
+        } catch (Exception e) {
+            logger.warn("Failed to dequeue {} cards for user {}: {}", cardIds.size(), userId, e.getMessage());
+        }
+    }
+
+    /**
+     * Card ids due now, earliest first. Empty when the queue is disabled or Redis is unavailable,
+     * in which case callers fall back to the indexed database queue.
+     */
+    public Optional<List<Long>> nextDue(Long userId, int limit) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        try {
+            String key = queueKey(userId);
+            if (!Boolean.TRUE.equals(redisTemplate.hasKey(key)) && !rebuild(userId)) {
+                // Being rebuilt by another request; the database answers until it is done
+                return Optional.empty();
+            }
+            Set<String> members = redisTemplate.opsForZSet()
+                .rangeByScore(key, Double.NEGATIVE_INFINITY, System.currentTimeMillis(), 0, limit);
+            if (members == null) {
+                return Optional.empty();
+            }
+            return Optional.of(members.stream().map(Long::valueOf).toList());
+        } catch (Exception e) {
+            logger.warn("Study queue unavailable for user {}, falling back to database: {}", userId, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Replaces a user's queue with the schedule stored in the database. Builds into a scratch key and
+     * renames it, so readers never see a half-built queue. Returns false if another rebuild of the
+     * same queue is running, or if this one outlived rebuild-timeout-ms and was abandoned.
+     */
+    public boolean rebuild(Long userId) {
+        String key = queueKey(userId);
+        Long started = redisTemplate.execute(REBUILD_START_SCRIPT, List.of(rebuildKey(key), removedKey(key)),
+            String.valueOf(rebuildTimeoutMs), BUILT_MARKER);
+        if (!Long.valueOf(1).equals(started)) {
+            return false;
+        }
+
+        List<CardReviewStateRepository.CardDueTime> dueTimes = cardReviewStateRepository.findDueTimesByUserId(userId);
+        List<String> args = new ArrayList<>(dueTimes.size() * 2);
+        for (CardReviewStateRepository.CardDueTime dueTime : dueTimes) {
+            args.add(score(dueTime.getDueAt()));
+            args.add(dueTime.getCardId().toString());
+        }
+        Long finished = redisTemplate.execute(REBUILD_FINISH_SCRIPT, List.of(key, rebuildKey(key), removedKey(key)),
+            args.toArray());
+        return Long.valueOf(1).equals(finished);
+    }
+
+    private void update(Long userId, List<String> args) {
+        String key = queueKey(userId);
+        redisTemplate.execute(UPDATE_SCRIPT, List.of(key, rebuildKey(key), removedKey(key)), args.toArray());
+    }
+
+    // Hash-tagged, so the queue and its rebuild keys share a Redis Cluster slot and one script can use them
+    private String queueKey(Long userId) {
+        return QUEUE_KEY_PREFIX + "{" + userId + "}";
+    }
+
+    private static String rebuildKey(String queueKey) {
+        return queueKey + ":rebuild";
+    }
+
+    private static String removedKey(String queueKey) {
+        return queueKey + ":rebuild:removed";
+    }
+
+    private String score(LocalDateTime dueAt) {
+        return String.valueOf(dueAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+    }
+
+    private static DefaultRedisScript<Long> script(String path) {
+        DefaultRedisScript<Long> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(Long.class);
+        return script;
+    }
+}
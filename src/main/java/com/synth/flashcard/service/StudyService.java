@@ -1,23 +1,40 @@
 package com.synth.flashcard.service;
 
+import com.synth.flashcard.dto.DueCardDto;
+import com.synth.flashcard.dto.DueCardsResponse;
+import com.synth.flashcard.dto.StudyCardDto;
 import com.synth.flashcard.entity.Card;
 import com.synth.flashcard.entity.Deck;
 import com.synth.flashcard.entity.StudyProgress;
 import com.synth.flashcard.entity.StudySession;
 import com.synth.flashcard.entity.User;
 import com.synth.flashcard.repository.CardRepository;
-import com.synth.flashcard.repository.DeckRepository;
+import com.synth.flashcard.repository.CardReviewStateRepository;
 import com.synth.flashcard.repository.StudyProgressRepository;
 import com.synth.flashcard.repository.StudySessionRepository;
-import com.synth.flashcard.repository.UserRepository;
+import com.synth.flashcard.util.KeysetCursor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class StudyService {
 
+    private static final int MAX_DUE_PAGE_SIZE = 100;
+
+    // Lower bound for the first keyset page; no review state is due before this
+    private static final LocalDateTime QUEUE_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
     @Autowired
     private ClaudeService claudeService;
     
@@ -37,18 +54,40 @@ public class StudyService {
     private StudyProgressRepository studyProgressRepository;
 
     @Autowired
-    private DeckRepository deckRepository;
+    private CardReviewStateRepository cardReviewStateRepository;
 
     @Autowired
-    private UserRepository userRepository;
+    private StudyQueueService studyQueueService;
+
+    @Autowired
+    private ProvisionalGradingService provisionalGradingService;
+
+    @Autowired
+    private AsyncGradingService asyncGradingService;
+
+    @Autowired
+    private StudyWriteBuffer studyWriteBuffer;
+
+    @Autowired
+    private StudyProgressWriter studyProgressWriter;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
 
     public StudySession submitAnswer(User user, Card card, String userAnswer) {
+        Timer.Sample sample = Timer.start(meterRegistry);
         // Use Gemini to grade the answer (switched from Claude for cost efficiency)
-        GeminiService.GradingResult gradingResult = geminiService.gradeAnswer(
-            card.getQuestion(),
-            card.getAnswer(),
-            userAnswer
-        );
+        GeminiService.GradingResult gradingResult;
+        try {
+            gradingResult = geminiService.gradeAnswer(
+                card.getQuestion(),
+                card.getAnswer(),
+                userAnswer
+            );
+        } catch (RuntimeException e) {
+            sample.stop(gradingTimer("sync", "failed"));
+            throw e;
+        }
 
         // Create study session record
         StudySession session = new StudySession(
@@ -60,76 +99,174 @@ public class StudyService {
             gradingResult.getFeedback()
         );
 
-        studySessionRepository.save(session);
+        if (studyWriteBuffer.isEnabled()) {
+            // Inserted by the next batched flush; the response carries no id until then
+            session.setStudiedAt(LocalDateTime.now());
+            studyWriteBuffer.addSession(session);
+        } else {
+            studySessionRepository.save(session);
+        }
+
+        // Reschedule the card and adjust its difficulty; the review state carries the review count
+        spacedRepetitionService.applyGrade(user, card, gradingResult.getScore(), session.getStudiedAt());
+
+        sample.stop(gradingTimer("sync", "final"));
+        return session;
+    }
+
+    private Timer gradingTimer(String mode, String outcome) {
+        return Timer.builder("grading.duration")
+            .description("Time to grade an answer, store it and reschedule the card")
+            .tag("mode", mode)
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Accepts an answer without waiting for the LLM: the session is stored with a provisional local
+     * score and returned immediately, and the final grade is pushed over SSE once it is ready.
+     */
+    public StudySession submitAnswerAsync(User user, Card card, String userAnswer) {
+        GeminiService.GradingResult provisional = provisionalGradingService.grade(card.getAnswer(), userAnswer);
 
-        // Update card difficulty based on performance
-        List<StudySession> allSessions = studySessionRepository
-            .findByCardIdAndUserIdOrderByStudiedAtDesc(card.getId(), user.getId());
-        
-        Card.Difficulty newDifficulty = spacedRepetitionService.calculateNewDifficulty(
-            card, 
-            gradingResult.getScore(), 
-            allSessions.size()
+        StudySession session = new StudySession(
+            user,
+            card,
+            userAnswer,
+            provisional.getScore(),
+            provisional.getConfidence(),
+            provisional.getFeedback()
         );
-        
-        if (newDifficulty != card.getDifficulty()) {
-            card.setDifficulty(newDifficulty);
-            cardRepository.save(card);
-        }
+        session.setGradingStatus(StudySession.GradingStatus.PROVISIONAL);
+
+        studySessionRepository.save(session);
+        asyncGradingService.grade(user, card, session.getId(), true);
 
         return session;
     }
 
-    public List<Card> getCardsForStudy(Long deckId, Long userId) {
-        try {
-            System.out.println("=== STUDY SERVICE DEBUG ===");
-            System.out.println("Deck ID: " + deckId);
-            System.out.println("User ID: " + userId);
-            
-            List<Card> allCards = cardRepository.findByDeckId(deckId);
-            System.out.println("Found " + allCards.size() + " cards in deck");
-            
-            // Create simple card objects without deck relationship to avoid JSON serialization issues
-            List<Card> simpleCards = allCards.stream()
-                .map(card -> {
-                    Card simpleCard = new Card();
-                    simpleCard.setId(card.getId());
-                    simpleCard.setQuestion(card.getQuestion());
-                    simpleCard.setAnswer(card.getAnswer());
-                    simpleCard.setDifficulty(card.getDifficulty());
-                    // Don't set deck or studySessions to avoid lazy loading issues
-                    return simpleCard;
-                })
-                .toList();
-            
-            System.out.println("Returning " + simpleCards.size() + " simple cards for study");
-            return simpleCards;
-            
-        } catch (Exception e) {
-            System.err.println("Error in getCardsForStudy: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
-        }
+    /**
+     * Cards of a deck ordered by review priority, computed from one joined query instead of a history read per card.
+     */
+    public List<StudyCardDto> getCardsForStudyByPriority(Long deckId, Long userId) {
+        return spacedRepetitionService.rankDeckByPriority(deckId, userId).stream()
+            .map(scheduled -> new StudyCardDto(scheduled.getCardId(), deckId, scheduled.getQuestion(),
+                scheduled.getAnswer(), scheduled.getDifficulty()))
+            .toList();
     }
 
+    public List<StudyCardDto> getCardsForStudy(Long deckId, Long userId) {
+        return cardRepository.findStudyCards(deckId, userId);
+    }
+
+    /**
+     * Saves progress without reading anything first: the row is upserted (or buffered when write-behind
+     * is on), and the stub user and deck only carry ids.
+     */
     public StudyProgress saveStudyProgress(Long userId, Long deckId, Integer currentCardIndex, 
                                          Integer totalCards, Integer cardsCompleted, Boolean isCompleted) {
-        User user = userRepository.findById(userId)
-            .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        Deck deck = deckRepository.findById(deckId)
-            .orElseThrow(() -> new RuntimeException("Deck not found"));
-
-        // Find existing progress or create new one
-        StudyProgress progress = studyProgressRepository
-            .findActiveProgressByUserAndDeck(userId, deckId)
-            .orElse(new StudyProgress(user, deck, totalCards));
+        User user = new User();
+        user.setId(userId);
+        Deck deck = new Deck();
+        deck.setId(deckId);
 
+        StudyProgress progress = new StudyProgress(user, deck, totalCards);
         progress.setCurrentCardIndex(currentCardIndex);
-        progress.setTotalCards(totalCards);
         progress.setCardsCompleted(cardsCompleted);
         progress.setIsCompleted(isCompleted);
+        progress.setLastStudiedAt(LocalDateTime.now());
+
+        if (!studyWriteBuffer.isEnabled()) {
+            return studyProgressWriter.save(progress);
+        }
+
+        studyWriteBuffer.putProgress(progress);
+        // Session end: persist everything now rather than on the next interval
+        if (Boolean.TRUE.equals(isCompleted)) {
+            studyWriteBuffer.flush();
+        }
+        return progress;
+    }
+
+    public Optional<StudyProgress> getActiveProgress(Long userId, Long deckId) {
+        flushPendingProgress(userId);
+        return studyProgressRepository.findActiveProgressByUserAndDeck(userId, deckId);
+    }
+
+    public List<StudyProgress> getActiveProgress(Long userId) {
+        flushPendingProgress(userId);
+        return studyProgressRepository.findActiveProgressByUser(userId);
+    }
+
+    public void clearStudyProgress(Long userId, Long deckId) {
+        studyProgressWriter.discard(userId, deckId);
+        if (studyWriteBuffer.isEnabled()) {
+            studyWriteBuffer.discardProgress(userId, deckId);
+        }
+        studyProgressRepository.findActiveProgressByUserAndDeck(userId, deckId)
+            .ifPresent(studyProgressRepository::delete);
+    }
 
-        return studyProgressRepository.save(progress);
+    public List<StudySession> getStudySessions(Long userId) {
+        if (studyWriteBuffer.isEnabled() && studyWriteBuffer.hasPendingSessions(userId)) {
+            studyWriteBuffer.flush();
+        }
+        return studySessionRepository.findByUserIdOrderByStudiedAtDesc(userId);
+    }
+
+    // Reads of buffered data flush first so the user always sees their own writes
+    private void flushPendingProgress(Long userId) {
+        studyProgressWriter.flushUser(userId);
+        if (studyWriteBuffer.isEnabled() && studyWriteBuffer.hasPendingProgress(userId)) {
+            studyWriteBuffer.flush();
+        }
+    }
+
+    public DueCardsResponse getDueCards(Long userId, Long deckId, int limit, String after) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_DUE_PAGE_SIZE));
+        LocalDateTime afterDue = QUEUE_START;
+        Long afterCardId = 0L;
+
+        if (after != null && !after.isBlank()) {
+            KeysetCursor cursor = KeysetCursor.decode(after);
+            afterDue = cursor.getTimestamp();
+            afterCardId = cursor.getId();
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        PageRequest page = PageRequest.of(0, pageSize);
+        List<DueCardDto> cards = deckId != null
+            ? cardReviewStateRepository.findDueCardsForDeck(userId, deckId, now, afterDue, afterCardId, page)
+            : cardReviewStateRepository.findDueCards(userId, now, afterDue, afterCardId, page);
+
+        String nextCursor = null;
+        if (cards.size() == pageSize) {
+            DueCardDto last = cards.get(cards.size() - 1);
+            nextCursor = new KeysetCursor(last.getDueAt(), last.getId()).encode();
+        }
+        return new DueCardsResponse(cards, nextCursor);
+    }
+
+    /**
+     * Next cards to review across all decks. Served from the user's Redis queue when enabled,
+     * otherwise (or when Redis is unavailable) from the indexed database queue.
+     */
+    public List<DueCardDto> getNextDueCards(Long userId, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_DUE_PAGE_SIZE));
+        Optional<List<Long>> queued = studyQueueService.nextDue(userId, pageSize);
+        if (queued.isEmpty()) {
+            return getDueCards(userId, null, pageSize, null).getCards();
+        }
+
+        List<Long> cardIds = queued.get();
+        if (cardIds.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, DueCardDto> cardsById = cardReviewStateRepository.findDueCardsByCardIds(userId, cardIds).stream()
+            .collect(Collectors.toMap(DueCardDto::getId, Function.identity()));
+        return cardIds.stream()
+            .map(cardsById::get)
+            .filter(Objects::nonNull)
+            .toList();
     }
 }
\ No newline at end of file
@@ -0,0 +1,298 @@
+package com.synth.flashcard.service;
+
+import com.synth.flashcard.entity.Card;
+import com.synth.flashcard.entity.StudyProgress;
+import com.synth.flashcard.entity.StudySession;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Write-behind buffer for the per-card writes of a study session. Answers, progress updates and card
+ * difficulty changes are held in memory and written in batched JDBC statements on a short interval,
+ * when a session completes, when the buffer fills up, and on shutdown. Progress and difficulty are
+ * latest-wins, so a burst of card flips becomes one row write.
+ *
+ * Durability trade-off: a crash loses at most one flush interval of buffered writes. A flush that fails
+ * because the database is unreachable keeps its rows buffered and the next flush retries them. Review
+ * state is not buffered, so scheduling stays exact either way.
+ */
+@Service
+public class StudyWriteBuffer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StudyWriteBuffer.class);
+
+    private static final String INSERT_SESSION =
+        "INSERT INTO study_sessions (user_id, card_id, response, score, confidence, feedback, studied_at, grading_status) " +
+        "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Same statements as StudyProgressRepository's upsert and completion, in JDBC form for batching
+    private static final String UPSERT_PROGRESS =
+        "INSERT INTO study_progress (user_id, deck_id, current_card_index, total_cards, cards_completed, " +
+        "is_completed, last_studied_at) " +
+        "SELECT d.user_id, d.id, ?, ?, ?, false, ? FROM decks d WHERE d.id = ? AND d.user_id = ? AND d.deleted_at IS NULL " +
+        "ON CONFLICT (user_id, deck_id) WHERE is_completed = false DO UPDATE SET " +
+        "current_card_index = EXCLUDED.current_card_index, total_cards = EXCLUDED.total_cards, " +
+        "cards_completed = EXCLUDED.cards_completed, last_studied_at = EXCLUDED.last_studied_at";
+
+    private static final String COMPLETE_PROGRESS =
+        "WITH completed AS ( " +
+        "    UPDATE study_progress SET current_card_index = ?, total_cards = ?, cards_completed = ?, " +
+        "    is_completed = true, last_studied_at = ? " +
+        "    WHERE deck_id = ? AND user_id = ? AND is_completed = false RETURNING id " +
+        ") INSERT INTO study_progress (user_id, deck_id, current_card_index, total_cards, cards_completed, " +
+        "is_completed, last_studied_at) " +
+        "SELECT d.user_id, d.id, ?, ?, ?, true, ? FROM decks d WHERE d.id = ? AND d.user_id = ? AND d.deleted_at IS NULL " +
+        "AND NOT EXISTS (SELECT 1 FROM completed)";
+
+    private static final String UPDATE_DIFFICULTY = "UPDATE cards SET difficulty = ? WHERE id = ?";
+
+    private static final String BUMP_DECK_VERSION =
+        "UPDATE decks SET content_version = content_version + 1, updated_at = NOW() " +
+        "WHERE id = ?";
+
+    @Value("${app.study.write-behind.enabled:false}")
+    private boolean enabled;
+
+    // Buffered writes past this count are flushed immediately instead of waiting for the interval
+    @Value("${app.study.write-behind.max-pending:5000}")
+    private int maxPending;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityCacheService entityCacheService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate batchTransaction;
+
+    private final Queue<StudySession> pendingSessions = new ConcurrentLinkedQueue<>();
+    private final Map<String, StudyProgress> pendingProgress = new ConcurrentHashMap<>();
+    private final Map<Long, Card> pendingDifficulties = new ConcurrentHashMap<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    @PostConstruct
+    void init() {
+        batchTransaction = new TransactionTemplate(transactionManager);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void addSession(StudySession session) {
+        pendingSessions.add(session);
+        afterWrite();
+    }
+
+    public void putProgress(StudyProgress progress) {
+        pendingProgress.put(progressKey(progress.getUser().getId(), progress.getDeck().getId()), progress);
+        afterWrite();
+    }
+
+    // Buffers the card's current difficulty; its deck is kept for the version bump and cache eviction
+    public void putDifficulty(Card card) {
+        pendingDifficulties.put(card.getId(), card);
+        afterWrite();
+    }
+
+    public void discardProgress(Long userId, Long deckId) {
+        pendingProgress.remove(progressKey(userId, deckId));
+    }
+
+    public boolean hasPendingSessions(Long userId) {
+        return pendingSessions.stream().anyMatch(session -> userId.equals(session.getUser().getId()));
+    }
+
+    public boolean hasPendingProgress(Long userId) {
+        String prefix = userId + ":";
+        return pendingProgress.keySet().stream().anyMatch(key -> key.startsWith(prefix));
+    }
+
+    @Scheduled(fixedDelayString = "${app.study.write-behind.flush-interval-ms:2000}")
+    public void scheduledFlush() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        if (enabled) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes everything buffered so far. Concurrent callers wait for the running flush instead of
+     * starting a second one, so a caller that needs read-your-writes sees its data afterwards.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            pendingCount.set(0);
+            flushSessions();
+            flushProgress();
+            flushDifficulties();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void afterWrite() {
+        if (pendingCount.incrementAndGet() >= maxPending && flushLock.tryLock()) {
+            try {
+                flush();
+            } finally {
+                flushLock.unlock();
+            }
+        }
+    }
+
+    private void flushSessions() {
+        List<StudySession> sessions = new ArrayList<>();
+        StudySession session;
+        while ((session = pendingSessions.poll()) != null) {
+            sessions.add(session);
+        }
+        batchUpdate(INSERT_SESSION, sessions, buffered -> new Object[] {
+            buffered.getUser().getId(),
+            buffered.getCard().getId(),
+            buffered.getResponse(),
+            buffered.getScore(),
+            buffered.getConfidence(),
+            buffered.getFeedback(),
+            Timestamp.valueOf(buffered.getStudiedAt()),
+            buffered.getGradingStatus().name()
+        }, pendingSessions::add, "study sessions");
+    }
+
+    private void flushProgress() {
+        List<StudyProgress> upserts = new ArrayList<>();
+        List<StudyProgress> completions = new ArrayList<>();
+        for (Map.Entry<String, StudyProgress> entry : pendingProgress.entrySet()) {
+            // Only drop the entry if no newer write replaced it while we were collecting
+            if (!pendingProgress.remove(entry.getKey(), entry.getValue())) {
+                continue;
+            }
+            StudyProgress progress = entry.getValue();
+            if (Boolean.TRUE.equals(progress.getIsCompleted())) {
+                completions.add(progress);
+            } else {
+                upserts.add(progress);
+            }
+        }
+        batchUpdate(UPSERT_PROGRESS, upserts, this::progressValues, this::requeueProgress, "study progress");
+        batchUpdate(COMPLETE_PROGRESS, completions, progress -> {
+            Object[] values = progressValues(progress);
+            Object[] row = new Object[values.length * 2];
+            System.arraycopy(values, 0, row, 0, values.length);
+            System.arraycopy(values, 0, row, values.length, values.length);
+            return row;
+        }, this::requeueProgress, "completed study progress");
+    }
+
+    private Object[] progressValues(StudyProgress progress) {
+        return new Object[] {
+            progress.getCurrentCardIndex(), progress.getTotalCards(), progress.getCardsCompleted(),
+            Timestamp.valueOf(progress.getLastStudiedAt()), progress.getDeck().getId(), progress.getUser().getId()
+        };
+    }
+
+    // A write buffered since the failed flush is newer and wins
+    private void requeueProgress(StudyProgress progress) {
+        pendingProgress.putIfAbsent(progressKey(progress.getUser().getId(), progress.getDeck().getId()), progress);
+    }
+
+    private void flushDifficulties() {
+        List<Card> changes = new ArrayList<>();
+        for (Map.Entry<Long, Card> entry : pendingDifficulties.entrySet()) {
+            if (pendingDifficulties.remove(entry.getKey(), entry.getValue())) {
+                changes.add(entry.getValue());
+            }
+        }
+        Consumer<Card> requeue = card -> pendingDifficulties.putIfAbsent(card.getId(), card);
+        List<Card> written = batchUpdate(UPDATE_DIFFICULTY, changes,
+            card -> new Object[] { card.getDifficulty().name(), card.getId() }, requeue, "card difficulties");
+
+        // Difficulty is part of the deck payload, so cached deck reads must revalidate. A retried change
+        // rewrites the same difficulty and bumps the version again, which is harmless.
+        batchUpdate(BUMP_DECK_VERSION, written, card -> new Object[] { card.getDeck().getId() }, requeue, "deck versions");
+        // Written past Hibernate, so cached cards and decks are dropped by hand
+        entityCacheService.evictCards(written.stream().map(Card::getId).toList(),
+            written.stream().map(card -> card.getDeck().getId()).distinct().toList());
+    }
+
+    /**
+     * Runs one JDBC batch and returns the items that were written. A row that violates a constraint
+     * (typically its card or deck was deleted in the meantime) is dropped after a row-by-row retry, so
+     * it does not discard the rest. Any other failure, such as a lost connection or a failover, hands
+     * the unwritten items back to the buffer for the next flush.
+     */
+    private <T> List<T> batchUpdate(String sql, List<T> items, Function<T, Object[]> toRow,
+                                    Consumer<T> requeue, String label) {
+        if (items.isEmpty()) {
+            return items;
+        }
+        try {
+            // One transaction, so a failed batch leaves nothing behind and requeued rows are not written twice
+            List<Object[]> rows = items.stream().map(toRow).toList();
+            batchTransaction.executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows));
+            logger.debug("Flushed {} buffered {}", items.size(), label);
+            return items;
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Batch flush of {} {} failed, retrying row by row: {}", items.size(), label, e.getMessage());
+        } catch (DataAccessException e) {
+            logger.warn("Batch flush of {} {} failed, keeping them for the next flush: {}", items.size(), label, e.getMessage());
+            items.forEach(requeue);
+            return List.of();
+        }
+
+        List<T> written = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            T item = items.get(i);
+            try {
+                jdbcTemplate.update(sql, toRow.apply(item));
+                written.add(item);
+            } catch (DataIntegrityViolationException rowError) {
+                logger.error("Dropping buffered {} row: {}", label, rowError.getMessage());
+            } catch (DataAccessException rowError) {
+                logger.warn("Row flush of {} failed, keeping {} rows for the next flush: {}",
+                    label, items.size() - i, rowError.getMessage());
+                items.subList(i, items.size()).forEach(requeue);
+                break;
+            }
+        }
+        return written;
+    }
+
+    private String progressKey(Long userId, Long deckId) {
+        return userId + ":" + deckId;
+    }
+}
@@ -1,5 +1,6 @@
 package com.synth.flashcard.service;
 
+import com.synth.flashcard.annotation.RateLimit;
 import com.synth.flashcard.entity.User;
 import com.synth.flashcard.repository.DeckRepository;
 import com.synth.flashcard.repository.CardRepository;
@@ -19,39 +20,52 @@ public class SubscriptionService {
         private final int maxDecks;
         private final int maxCardsPerDeck;
         private final boolean hasAdvancedFeatures;
+        private final int generationsPerHour;
+        private final int gradedAnswersPerMinute;
 
-        public SubscriptionLimits(int maxDecks, int maxCardsPerDeck, boolean hasAdvancedFeatures) {
+        public SubscriptionLimits(int maxDecks, int maxCardsPerDeck, boolean hasAdvancedFeatures,
+                                  int generationsPerHour, int gradedAnswersPerMinute) {
             this.maxDecks = maxDecks;
             this.maxCardsPerDeck = maxCardsPerDeck;
             this.hasAdvancedFeatures = hasAdvancedFeatures;
+            this.generationsPerHour = generationsPerHour;
+            this.gradedAnswersPerMinute = gradedAnswersPerMinute;
         }
 
         public int getMaxDecks() { return maxDecks; }
         public int getMaxCardsPerDeck() { return maxCardsPerDeck; }
         public boolean hasAdvancedFeatures() { return hasAdvancedFeatures; }
+        public int getGenerationsPerHour() { return generationsPerHour; }
+        public int getGradedAnswersPerMinute() { return gradedAnswersPerMinute; }
     }
 
     public SubscriptionLimits getLimitsForTier(User.SubscriptionTier tier) {
         // Handle null tier (new users without subscription tier set)
         if (tier == null) {
-            return new SubscriptionLimits(3, 50, false); // Default to FREE tier limits
+            return new SubscriptionLimits(3, 50, false, 10, 30); // Default to FREE tier limits
         }
         
         switch (tier) {
             case FREE:
-                return new SubscriptionLimits(3, 50, false);
+                return new SubscriptionLimits(3, 50, false, 10, 30);
             case BASIC:
-                return new SubscriptionLimits(10, Integer.MAX_VALUE, false);
+                return new SubscriptionLimits(10, Integer.MAX_VALUE, false, 30, 60);
             case PRO:
-                return new SubscriptionLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, true);
+                return new SubscriptionLimits(Integer.MAX_VALUE, Integer.MAX_VALUE, true, 100, 120);
             default:
-                return new SubscriptionLimits(3, 50, false);
+                return new SubscriptionLimits(3, 50, false, 10, 30);
         }
     }
 
+    // Requests per RateLimit.Quota window; generation and grading call Gemini, so they are metered per user
+    public int getRateLimit(User.SubscriptionTier tier, RateLimit.Quota quota) {
+        SubscriptionLimits limits = getLimitsForTier(tier);
+        return quota == RateLimit.Quota.GENERATION ? limits.getGenerationsPerHour() : limits.getGradedAnswersPerMinute();
+    }
+
     public boolean canCreateDeck(User user) {
         SubscriptionLimits limits = getLimitsForTier(user.getSubscriptionTier());
-        int currentDeckCount = deckRepository.countByUserId(user.getId());
+        int currentDeckCount = deckRepository.countByUserIdAndDeletedAtIsNull(user.getId());
         return currentDeckCount < limits.getMaxDecks();
     }
 
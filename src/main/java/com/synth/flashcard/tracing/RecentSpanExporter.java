@@ -0,0 +1,93 @@
+package com.synth.flashcard.tracing;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps the most recently finished spans of this node in memory, so traces can be read from
+ * /actuator/spans without an external collector. Boot's tracing auto-configuration hands every
+ * SpanExporter bean the batches from its span processor; an OTLP exporter can run alongside it.
+ */
+@Component
+@ConditionalOnProperty(name = "app.tracing.local-exporter.enabled", havingValue = "true", matchIfMissing = true)
+public class RecentSpanExporter implements SpanExporter {
+
+    @Value("${app.tracing.local-exporter.max-spans:5000}")
+    private int maxSpans;
+
+    private final ConcurrentLinkedDeque<SpanData> spans = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    @Override
+    public CompletableResultCode export(Collection<SpanData> batch) {
+        for (SpanData span : batch) {
+            spans.addLast(span);
+            // Oldest spans go first once the buffer is full
+            if (size.incrementAndGet() > maxSpans && spans.pollFirst() != null) {
+                size.decrementAndGet();
+            }
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        spans.clear();
+        size.set(0);
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * Spans of one trace that finished on this node, in start order.
+     */
+    public List<SpanData> getTrace(String traceId) {
+        List<SpanData> trace = new ArrayList<>();
+        for (SpanData span : spans) {
+            if (span.getTraceId().equals(traceId)) {
+                trace.add(span);
+            }
+        }
+        trace.sort(Comparator.comparingLong(SpanData::getStartEpochNanos));
+        return trace;
+    }
+
+    /**
+     * Spans of the most recent traces, newest trace first.
+     */
+    public Map<String, List<SpanData>> getRecentTraces(int limit) {
+        Map<String, List<SpanData>> traces = new LinkedHashMap<>();
+        Iterator<SpanData> newestFirst = spans.descendingIterator();
+        while (newestFirst.hasNext()) {
+            SpanData span = newestFirst.next();
+            List<SpanData> trace = traces.get(span.getTraceId());
+            if (trace == null) {
+                if (traces.size() == limit) {
+                    continue;
+                }
+                trace = new ArrayList<>();
+                traces.put(span.getTraceId(), trace);
+            }
+            trace.add(span);
+        }
+        return traces;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,79 @@
+package com.synth.flashcard.tracing;
+
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * /actuator/spans lists the latest traces seen by this node with their total duration, and
+ * /actuator/spans/{traceId} returns one trace as a flat, start-ordered list of spans. The trace id is
+ * the one printed in the log lines of the request.
+ * <p>
+ * Spans hold every user's URLs, ids and query attributes, so the endpoint is not exposed by default and
+ * SecurityConfig serves it only on a separate management port.
+ */
+@Component
+@Endpoint(id = "spans")
+@ConditionalOnProperty(name = "app.tracing.local-exporter.enabled", havingValue = "true", matchIfMissing = true)
+public class RecentSpansEndpoint {
+
+    private static final int RECENT_TRACES = 50;
+
+    @Autowired
+    private RecentSpanExporter exporter;
+
+    @ReadOperation
+    public List<Map<String, Object>> traces() {
+        List<Map<String, Object>> summaries = new ArrayList<>();
+        exporter.getRecentTraces(RECENT_TRACES).forEach((traceId, spans) -> {
+            long start = Long.MAX_VALUE;
+            long end = 0;
+            String root = null;
+            for (SpanData span : spans) {
+                start = Math.min(start, span.getStartEpochNanos());
+                end = Math.max(end, span.getEndEpochNanos());
+                if (!span.getParentSpanContext().isValid()) {
+                    root = span.getName();
+                }
+            }
+            Map<String, Object> summary = new HashMap<>();
+            summary.put("traceId", traceId);
+            summary.put("root", root != null ? root : spans.get(0).getName());
+            summary.put("start", Instant.ofEpochSecond(0, start).toString());
+            summary.put("durationMs", (end - start) / 1_000_000.0);
+            summary.put("spanCount", spans.size());
+            summaries.add(summary);
+        });
+        return summaries;
+    }
+
+    @ReadOperation
+    public List<Map<String, Object>> trace(@Selector String traceId) {
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (SpanData span : exporter.getTrace(traceId)) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("spanId", span.getSpanId());
+            entry.put("parentSpanId", span.getParentSpanContext().isValid() ? span.getParentSpanId() : null);
+            entry.put("name", span.getName());
+            entry.put("kind", span.getKind().name());
+            entry.put("start", Instant.ofEpochSecond(0, span.getStartEpochNanos()).toString());
+            entry.put("durationMs", (span.getEndEpochNanos() - span.getStartEpochNanos()) / 1_000_000.0);
+            entry.put("status", span.getStatus().getStatusCode().name());
+            Map<String, Object> attributes = new HashMap<>();
+            span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), value));
+            entry.put("attributes", attributes);
+            result.add(entry);
+        }
+        return result;
+    }
+}
\ No newline at end of file
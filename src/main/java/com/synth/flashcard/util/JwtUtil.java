@@ -1,9 +1,12 @@
 package com.synth.flashcard.util;
 
+import com.synth.flashcard.entity.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -17,12 +20,37 @@ import java.util.function.Function;
 @Component
 public class JwtUtil {
 
+    // Principal claims, so stateless mode can build the user without a database lookup
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String TIER_CLAIM = "tier";
+    public static final String EMAIL_VERIFIED_CLAIM = "ev";
+
     @Value("${app.jwt.secret}")
     private String secret;
 
     @Value("${app.jwt.expiration}")
     private int jwtExpiration;
 
+    // The key and parser are immutable and thread-safe, so they are built once
+    private SecretKey signKey;
+    private JwtParser parser;
+
+    @PostConstruct
+    public void init() {
+        signKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parserBuilder()
+                .setSigningKey(signKey)
+                .build();
+    }
+
+    /**
+     * Verifies the signature and expiry and returns the claims. Throws a JwtException for any
+     * invalid or expired token, so callers parse each token exactly once.
+     */
+    public Claims parseToken(String token) {
+        return parser.parseClaimsJws(token).getBody();
+    }
+
     public String getUsernameFromToken(String token) {
         return getClaimFromToken(token, Claims::getSubject);
     }
@@ -32,25 +60,17 @@ public class JwtUtil {
     }
 
     public <T> T getClaimFromToken(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = getAllClaimsFromToken(token);
+        final Claims claims = parseToken(token);
         return claimsResolver.apply(claims);
     }
 
-    private Claims getAllClaimsFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        final Date expiration = getExpirationDateFromToken(token);
-        return expiration.before(new Date());
-    }
-
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
+        if (userDetails instanceof User user) {
+            claims.put(USER_ID_CLAIM, user.getId());
+            claims.put(TIER_CLAIM, user.getSubscriptionTier() != null ? user.getSubscriptionTier().name() : User.SubscriptionTier.FREE.name());
+            claims.put(EMAIL_VERIFIED_CLAIM, user.isEmailVerified());
+        }
         return createToken(claims, userDetails.getUsername());
     }
 
@@ -60,16 +80,33 @@ public class JwtUtil {
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
-                .signWith(getSignKey(), SignatureAlgorithm.HS512)
+                .signWith(signKey, SignatureAlgorithm.HS512)
                 .compact();
     }
 
-    public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = getUsernameFromToken(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+    public boolean hasPrincipalClaims(Claims claims) {
+        return claims.get(USER_ID_CLAIM) != null && claims.get(TIER_CLAIM) != null;
+    }
+
+    /**
+     * Principal built from the token alone. It carries no password and is not a managed entity, so it
+     * must not be saved; load the stored user before changing it.
+     */
+    public User principalFromClaims(Claims claims) {
+        User user = new User();
+        user.setId(((Number) claims.get(USER_ID_CLAIM)).longValue());
+        user.setEmail(claims.getSubject());
+        user.setSubscriptionTier(User.SubscriptionTier.valueOf(claims.get(TIER_CLAIM, String.class)));
+        user.setEmailVerified(Boolean.TRUE.equals(claims.get(EMAIL_VERIFIED_CLAIM, Boolean.class)));
+        return user;
+    }
+
+    // Parsing has already rejected expired tokens; this only ties the claims to the loaded user
+    public boolean validateClaims(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername());
     }
 
-    private SecretKey getSignKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    public Boolean validateToken(String token, UserDetails userDetails) {
+        return validateClaims(parseToken(token), userDetails);
     }
 }
\ No newline at end of file
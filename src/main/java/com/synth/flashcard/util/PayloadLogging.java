@@ -0,0 +1,51 @@
+package com.synth.flashcard.util;
+
+import org.slf4j.Logger;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps large bodies (prompts, LLM replies) out of the logs unless asked for. Payloads are logged
+ * only at DEBUG and only for a sample of calls, and are cut to a bounded length when they are.
+ */
+@Component
+public class PayloadLogging {
+
+    @Value("${app.logging.payload-sample-rate:0.01}")
+    private double sampleRate;
+
+    @Value("${app.logging.max-payload-chars:500}")
+    private int maxChars;
+
+    // Decide once per call so a sampled call logs both its request and its reply
+    public boolean sample(Logger logger) {
+        return logger.isDebugEnabled() && ThreadLocalRandom.current().nextDouble() < sampleRate;
+    }
+
+    /**
+     * Argument for a parameterized log call; the text is cut only if the message is actually written.
+     */
+    public Object truncate(String payload) {
+        return new Truncated(payload, maxChars);
+    }
+
+    private static class Truncated {
+        private final String payload;
+        private final int maxChars;
+
+        Truncated(String payload, int maxChars) {
+            this.payload = payload;
+            this.maxChars = maxChars;
+        }
+
+        @Override
+        public String toString() {
+            if (payload == null || payload.length() <= maxChars) {
+                return String.valueOf(payload);
+            }
+            return payload.substring(0, maxChars) + "... (" + payload.length() + " chars)";
+        }
+    }
+}
\ No newline at end of file
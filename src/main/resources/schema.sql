@@ -0,0 +1,82 @@
+-- Runs after Hibernate's ddl-auto update (spring.jpa.defer-datasource-initialization), for schema
+-- objects JPA annotations cannot express. Every statement must be safe to re-run on each startup.
+
+-- At most one active progress row per (user, deck); saves upsert against this index.
+-- Older duplicates left by concurrent saves before the index existed are removed first.
+DELETE FROM study_progress sp
+USING study_progress newer
+WHERE sp.is_completed = false
+  AND newer.is_completed = false
+  AND newer.user_id = sp.user_id
+  AND newer.deck_id = sp.deck_id
+  AND newer.id > sp.id;
+
+CREATE UNIQUE INDEX IF NOT EXISTS uk_study_progress_active
+    ON study_progress (user_id, deck_id)
+    WHERE is_completed = false;
+
+-- Review states written before updated_at existed get a change time so delta sync can page over them
+UPDATE card_review_states
+SET updated_at = COALESCE(last_reviewed_at, due_at)
+WHERE updated_at IS NULL;
+
+-- Decks created before updated_at existed count as last modified at creation
+UPDATE decks SET updated_at = created_at WHERE updated_at IS NULL;
+
+
+-- Deleted decks waiting for DeckPurgeService; stays tiny because purged rows leave it
+CREATE INDEX IF NOT EXISTS idx_decks_deleted ON decks (deleted_at) WHERE deleted_at IS NOT NULL;
+
+-- Emails due for sending; EmailOutboxDispatcher claims from the front of this index every poll
+CREATE INDEX IF NOT EXISTS idx_email_outbox_pending ON email_outbox (next_attempt_at) WHERE status = 'PENDING';
+
+-- Rows of an unsettled batch, which the dispatcher re-claims and resends together
+CREATE INDEX IF NOT EXISTS idx_email_outbox_batch ON email_outbox (batch_key) WHERE status = 'PENDING';
+
+-- Used tokens are deleted by ExpiredTokenCleanupJob; expired ones are found through the expires_at indexes
+CREATE INDEX IF NOT EXISTS idx_email_confirmation_token_used ON email_confirmation_tokens (id) WHERE used = true;
+CREATE INDEX IF NOT EXISTS idx_password_reset_token_used ON password_reset_tokens (id) WHERE used = true;
+
+-- Sent and failed outbox rows, for EmailOutboxRetentionJob
+CREATE INDEX IF NOT EXISTS idx_email_outbox_finished ON email_outbox (created_at) WHERE status <> 'PENDING';
+
+-- One row per maintenance job; whoever holds an unexpired lease runs the job (see MaintenanceScheduler)
+CREATE TABLE IF NOT EXISTS maintenance_leases (
+    job_name VARCHAR(100) PRIMARY KEY,
+    owner VARCHAR(255) NOT NULL,
+    lease_until TIMESTAMP NOT NULL,
+    last_started_at TIMESTAMP,
+    last_finished_at TIMESTAMP,
+    last_outcome VARCHAR(20),
+    last_rows_deleted BIGINT
+);
+
+-- One-shot markers for data migrations that must not re-run on every startup
+CREATE TABLE IF NOT EXISTS schema_markers (
+    name VARCHAR(100) PRIMARY KEY,
+    applied_at TIMESTAMP NOT NULL
+);
+
+-- Seeds review state for cards created before the table existed, once: the marker insert returns a row
+-- only the first time. New cards are due at deck creation, studied cards one day after their last
+-- review so the scheduler picks them up again.
+WITH marker AS (
+    INSERT INTO schema_markers (name, applied_at) VALUES ('card_review_states_backfill', NOW())
+    ON CONFLICT (name) DO NOTHING
+    RETURNING name
+)
+INSERT INTO card_review_states (user_id, card_id, deck_id, due_at, review_count, last_score, last_reviewed_at, updated_at)
+SELECT d.user_id, c.id, c.deck_id,
+       COALESCE(h.last_studied_at + INTERVAL '1 day', d.created_at, NOW()),
+       COALESCE(h.review_count, 0), h.last_score, h.last_studied_at, NOW()
+FROM cards c
+JOIN decks d ON d.id = c.deck_id
+LEFT JOIN LATERAL (
+    SELECT COUNT(*) AS review_count, MAX(ss.studied_at) AS last_studied_at,
+           (ARRAY_AGG(ss.score ORDER BY ss.studied_at DESC))[1] AS last_score
+    FROM study_sessions ss WHERE ss.card_id = c.id AND ss.user_id = d.user_id
+) h ON TRUE
+WHERE EXISTS (SELECT 1 FROM marker)
+  AND d.deleted_at IS NULL
+  AND NOT EXISTS (SELECT 1 FROM card_review_states s WHERE s.card_id = c.id AND s.user_id = d.user_id)
+ON CONFLICT (user_id, card_id) DO NOTHING;
\ No newline at end of file
@@ -0,0 +1,45 @@
+-- Token bucket shared by all nodes, evaluated atomically per call.
+-- KEYS[1]  bucket key (hash with fields tokens, ts)
+-- ARGV[1]  capacity: tokens in a full bucket
+-- ARGV[2]  window in ms: time to refill an empty bucket
+-- ARGV[3]  tokens wanted: a node leases up to this many at once; a negative value returns unused tokens
+-- Returns {tokens granted, tokens left, ms until the bucket is full, ms until one token is available}
+
+local capacity = tonumber(ARGV[1])
+local window_ms = tonumber(ARGV[2])
+local wanted = tonumber(ARGV[3])
+local rate = capacity / window_ms
+
+-- Server clock, so every node shares one time source
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+
+local state = redis.call('HMGET', KEYS[1], 'tokens', 'ts')
+local tokens = tonumber(state[1])
+local ts = tonumber(state[2])
+if tokens == nil or ts == nil then
+    tokens = capacity
+    ts = now
+end
+
+tokens = math.min(capacity, tokens + math.max(0, now - ts) * rate)
+
+local granted = 0
+if wanted < 0 then
+    tokens = math.min(capacity, tokens - wanted)
+else
+    granted = math.min(wanted, math.floor(tokens))
+    tokens = tokens - granted
+end
+
+local retry_after = 0
+if tokens < 1 then
+    retry_after = math.ceil((1 - tokens) / rate)
+end
+
+local reset = math.ceil((capacity - tokens) / rate)
+redis.call('HSET', KEYS[1], 'tokens', tostring(tokens), 'ts', tostring(now))
+-- A bucket that has refilled is the same as no bucket, so the key never outlives its window
+redis.call('PEXPIRE', KEYS[1], math.max(reset, 1))
+
+return {granted, math.floor(tokens), reset, retry_after}
\ No newline at end of file
@@ -0,0 +1,22 @@
+-- Finishes a rebuild: adds the database snapshot to the queue being rebuilt and swaps it in.
+-- Cards scheduled during the rebuild are already there with due times newer than the snapshot, so the
+-- snapshot only fills in missing ids (NX), and ids removed during the rebuild are skipped.
+-- KEYS[1]  queue
+-- KEYS[2]  queue being rebuilt
+-- KEYS[3]  card ids removed while the rebuild runs
+-- ARGV     score, card id pairs read from the database
+-- Returns 1 if the queue was replaced, 0 if the rebuild had expired
+
+if redis.call('EXISTS', KEYS[2]) == 0 then
+    return 0
+end
+
+for i = 1, #ARGV, 2 do
+    if redis.call('SISMEMBER', KEYS[3], ARGV[i + 1]) == 0 then
+        redis.call('ZADD', KEYS[2], 'NX', ARGV[i], ARGV[i + 1])
+    end
+end
+redis.call('RENAME', KEYS[2], KEYS[1])
+redis.call('PERSIST', KEYS[1])
+redis.call('DEL', KEYS[3])
+return 1
\ No newline at end of file
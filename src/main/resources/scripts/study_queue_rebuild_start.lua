@@ -0,0 +1,15 @@
+-- Starts rebuilding a user's study queue from the database, unless a rebuild is already running.
+-- KEYS[1]  queue being rebuilt
+-- KEYS[2]  card ids removed while the rebuild runs
+-- ARGV[1]  ms after which an abandoned rebuild stops blocking new ones
+-- ARGV[2]  member marking a built queue, scored +inf so it is never due; keeps empty queues in Redis
+-- Returns 1 if the caller now owns the rebuild, 0 otherwise
+
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+
+redis.call('DEL', KEYS[2])
+redis.call('ZADD', KEYS[1], '+inf', ARGV[2])
+redis.call('PEXPIRE', KEYS[1], ARGV[1])
+return 1
\ No newline at end of file
@@ -0,0 +1,38 @@
+-- Applies a schedule change to a user's study queue, and to a rebuild of it that is in progress, in one
+-- step, so a rebuild cannot swap in a database snapshot that predates the change.
+-- KEYS[1]  queue: sorted set of card ids scored by due time in epoch ms
+-- KEYS[2]  queue being rebuilt; exists only while a rebuild runs
+-- KEYS[3]  card ids removed while the rebuild runs
+-- ARGV[1]  'add' followed by score, card id pairs, or 'remove' followed by card ids
+-- A queue that does not exist is left alone; it is built from the database on its next read.
+-- Returns 1 if the queue exists, 0 otherwise
+
+local queued = redis.call('EXISTS', KEYS[1]) == 1
+local building = redis.call('EXISTS', KEYS[2]) == 1
+
+if ARGV[1] == 'add' then
+    for i = 2, #ARGV, 2 do
+        if queued then
+            redis.call('ZADD', KEYS[1], ARGV[i], ARGV[i + 1])
+        end
+        if building then
+            redis.call('ZADD', KEYS[2], ARGV[i], ARGV[i + 1])
+            redis.call('SREM', KEYS[3], ARGV[i + 1])
+        end
+    end
+else
+    for i = 2, #ARGV do
+        if queued then
+            redis.call('ZREM', KEYS[1], ARGV[i])
+        end
+        if building then
+            redis.call('ZREM', KEYS[2], ARGV[i])
+            redis.call('SADD', KEYS[3], ARGV[i])
+        end
+    end
+    if building then
+        redis.call('PEXPIRE', KEYS[3], redis.call('PTTL', KEYS[2]))
+    end
+end
+
+return queued and 1 or 0
\ No newline at end of file
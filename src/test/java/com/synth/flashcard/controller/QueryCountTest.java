@@ -0,0 +1,115 @@
+package com.synth.flashcard.controller;
+
+import com.synth.flashcard.config.QueryCountConfig;
+import com.synth.flashcard.entity.Card;
+import com.synth.flashcard.entity.Deck;
+import com.synth.flashcard.entity.User;
+import com.synth.flashcard.repository.CardRepository;
+import com.synth.flashcard.repository.DeckRepository;
+import com.synth.flashcard.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Statement budgets of the deck and study card reads, counted by QueryCountConfig. The second-level
+ * cache is off so every request takes the cold path; the budgets do not include JdbcTemplate queries
+ * such as the ETag check.
+ */
+@SpringBootTest(properties = {
+    "app.debug.query-count.enabled=true",
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+    "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class QueryCountTest {
+
+    @Container
+    @ServiceConnection
+    static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    @ServiceConnection(name = "redis")
+    static GenericContainer<?> redis = new GenericContainer<>("redis:7-alpine").withExposedPorts(6379);
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private DeckRepository deckRepository;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    private User owner;
+    private Deck deck;
+
+    // Several decks with several cards each, so a query per deck or per card would show in the count
+    @BeforeEach
+    void createDecks() {
+        owner = userRepository.save(new User(UUID.randomUUID() + "@example.com", "not-a-real-hash"));
+        for (int d = 0; d < 3; d++) {
+            Deck saved = deckRepository.save(new Deck(owner, "Deck " + d, "Query count fixture"));
+            for (int c = 0; c < 4; c++) {
+                cardRepository.save(new Card(saved, "Question " + c, "Answer " + c, Card.Difficulty.MEDIUM));
+            }
+            deck = saved;
+        }
+    }
+
+    @Test
+    void deckListTakesTwoStatements() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/decks").with(user(owner)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(3))
+            .andExpect(jsonPath("$[0].cards.length()").value(4))
+            .andReturn();
+
+        assertEquals(2, statements(result));
+    }
+
+    @Test
+    void deckDetailTakesTwoStatements() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/decks/{deckId}", deck.getId()).with(user(owner)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.cards.length()").value(4))
+            .andReturn();
+
+        assertEquals(2, statements(result));
+    }
+
+    @Test
+    void studyCardsTakeOneStatement() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/study/deck/{deckId}", deck.getId()).with(user(owner)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(4))
+            .andReturn();
+
+        assertEquals(1, statements(result));
+    }
+
+    private static int statements(MvcResult result) {
+        return (Integer) result.getRequest().getAttribute(QueryCountConfig.STATEMENT_COUNT_ATTRIBUTE);
+    }
+}
\ No newline at end of file
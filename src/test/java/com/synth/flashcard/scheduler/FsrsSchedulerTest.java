@@ -0,0 +1,50 @@
+package com.synth.flashcard.scheduler;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * States written by SM-2 or the review state backfill have a review history but no stability; FSRS
+ * must carry on from their interval instead of scheduling them as new cards.
+ */
+class FsrsSchedulerTest {
+
+    private final FsrsScheduler scheduler = new FsrsScheduler(0.9);
+
+    @Test
+    void migratedSm2StateKeepsItsInterval() {
+        ReviewState migrated = new ReviewState(2.5, 0.0, 0.0, 20.0, 5);
+
+        ReviewState next = scheduler.review(migrated, 0.7, 20.0);
+
+        assertEquals(6, next.getReviewCount());
+        assertTrue(next.getStability() > 20.0, "stability " + next.getStability());
+        assertTrue(next.getIntervalDays() > 20.0, "interval " + next.getIntervalDays());
+        assertTrue(next.getMemoryDifficulty() >= 1.0 && next.getMemoryDifficulty() <= 10.0);
+    }
+
+    @Test
+    void newCardStartsFromTheInitialStability() {
+        ReviewState next = scheduler.review(ReviewState.newCard(), 0.7, 0.0);
+
+        assertEquals(1, next.getReviewCount());
+        assertEquals(4.0, next.getIntervalDays());
+    }
+
+    @Test
+    void migratedSm2StateIsRankedByRetrievability() {
+        long now = 100 * SchedulerEngine.DAY_MILLIS;
+        long lastReviewed = now - 10 * SchedulerEngine.DAY_MILLIS;
+        ScheduleBatch batch = new ScheduleBatch(1);
+        batch.set(0, 1L, 0.0, 10.0, 3, lastReviewed, 0L);
+
+        scheduler.computeBatch(batch, now);
+
+        assertNotEquals(SchedulerEngine.NEW_CARD_PRIORITY, batch.priorities()[0]);
+        assertEquals(50, batch.priorities()[0]);
+        assertEquals(now, batch.dueAtMillis()[0]);
+    }
+}
\ No newline at end of file